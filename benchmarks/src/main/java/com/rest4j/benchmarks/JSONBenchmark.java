@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.benchmarks;
+
+import com.rest4j.ApiException;
+import com.rest4j.ApiRequest;
+import com.rest4j.impl.Fixtures;
+import com.rest4j.impl.MarshallerImpl;
+import com.rest4j.impl.petapi.Pet;
+import com.rest4j.impl.petapi.PetMapping;
+import com.rest4j.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON text output with JSONArray.write and JSON parsing, both from a String with JSONTokener
+ * and from the request stream as ApiRequest.arrayInput() does it. The document is an array
+ * of marshalled petapi.xml 'Pet' objects.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JSONBenchmark {
+	@Param({"10", "1000"})
+	int size;
+
+	JSONArray array;
+	String text;
+	byte[] bytes;
+
+	@Setup
+	public void init() throws Exception {
+		MarshallerImpl marshaller = Fixtures.marshaller("petapi.xml", new PetMapping());
+		List<Pet> pets = new ArrayList<Pet>();
+		for (int i = 0; i < size; i++) {
+			pets.add(Fixtures.pet(i));
+		}
+		array = (JSONArray) marshaller.marshal(marshaller.getArrayType(marshaller.getObjectType("Pet")), pets);
+		text = array.toString();
+		bytes = text.getBytes("UTF-8");
+	}
+
+	@Benchmark
+	public StringWriter write() {
+		StringWriter writer = new StringWriter();
+		array.write(writer);
+		return writer;
+	}
+
+	@Benchmark
+	public StringWriter write_pretty() {
+		StringWriter writer = new StringWriter();
+		array.write(writer, 2);
+		return writer;
+	}
+
+	@Benchmark
+	public JSONArray parse_string() {
+		return new JSONArray(text);
+	}
+
+	@Benchmark
+	public JSONArray parse_request() throws IOException, ApiException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContentType("application/json");
+		request.setContent(bytes);
+		return ApiRequest.from(request).arrayInput();
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.benchmarks;
+
+import com.rest4j.Patch;
+import com.rest4j.impl.Fixtures;
+import com.rest4j.impl.petapi.Pet;
+import com.rest4j.impl.petapi.UpdateResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The 'pets' service of petapi.xml. Does as little as possible, so that the
+ * benchmarks measure rest4j rather than the service.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class PetService {
+	final List<Pet> pets = new ArrayList<Pet>();
+	final Pet pet = Fixtures.pet(555);
+
+	public PetService(int listSize) {
+		for (int i = 0; i < listSize; i++) {
+			pets.add(Fixtures.pet(i));
+		}
+	}
+
+	public List<Pet> list(String type) {
+		return pets;
+	}
+
+	public Pet get(int id) {
+		return pet;
+	}
+
+	public UpdateResult create(Pet newPet) {
+		return new UpdateResult();
+	}
+
+	public void delete(int id, String access_token) {
+	}
+
+	public void put(int id, Patch<Pet> patch) {
+	}
+
+	public void patch(int id, Patch<Pet> patch) {
+	}
+}
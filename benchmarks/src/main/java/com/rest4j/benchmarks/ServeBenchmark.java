@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.benchmarks;
+
+import com.rest4j.API;
+import com.rest4j.ApiException;
+import com.rest4j.ApiRequest;
+import com.rest4j.ApiResponse;
+import com.rest4j.impl.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full request processing with {@link API#serve(ApiRequest)} and {@link ApiResponse#outputBody}
+ * on the petapi.xml API: routing, parameter parsing, request body parsing and unmarshalling,
+ * the service call, marshalling and the response output, with and without gzip.
+ * The PATCH request performs a GET first and patches a deep clone of its result.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ServeBenchmark {
+	static final String PET_JSON = "{\"type\":\"cat\",\"name\":\"Max\",\"weight\":4.3,\"gender\":\"male\",\"relations\":[{\"type\":\"friend\",\"petId\":234}]}";
+
+	@Param({"false", "true"})
+	boolean gzip;
+
+	@Param({"100"})
+	int listSize;
+
+	API api;
+
+	@Setup
+	public void init() throws Exception {
+		api = Fixtures.petApi(new PetService(listSize));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse get() throws IOException, ApiException {
+		return serve(request("GET", "/api/v2/pets/555", null));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse getList() throws IOException, ApiException {
+		MockHttpServletRequest request = request("GET", "/api/v2/pets", null);
+		request.addParameter("type", "cat");
+		return serve(request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse post() throws IOException, ApiException {
+		MockHttpServletRequest request = request("POST", "/api/v2/pets", PET_JSON);
+		request.addParameter("access_token", "123");
+		return serve(request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse patch() throws IOException, ApiException {
+		return serve(request("PATCH", "/api/v2/pets/555", "{\"name\":\"Bob\",\"weight\":5}"));
+	}
+
+	MockHttpServletRequest request(String method, String path, String body) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		if (gzip) request.addHeader("Accept-Encoding", "gzip, deflate");
+		if (body != null) {
+			request.setContentType("application/json");
+			request.setContent(body.getBytes("UTF-8"));
+		}
+		return request;
+	}
+
+	MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException, ApiException {
+		ApiResponse response = api.serve(ApiRequest.from(request));
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+		response.outputBody(servletResponse);
+		return servletResponse;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.impl.petapi.Pet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean property access through the generated {@link MethodInvoker} compared to
+ * Method.invoke and to a plain Java call, for a getter returning an object, a getter
+ * returning a primitive (boxing) and a setter.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccessorBenchmark {
+	Pet pet;
+	Method getName;
+	Method getId;
+	Method setName;
+	MethodInvoker getNameInvoker;
+	MethodInvoker getIdInvoker;
+	MethodInvoker setNameInvoker;
+
+	@Setup
+	public void init() throws NoSuchMethodException {
+		pet = Fixtures.pet(555);
+		getName = Pet.class.getMethod("getName");
+		getId = Pet.class.getMethod("getId");
+		setName = Pet.class.getMethod("setName", String.class);
+		getNameInvoker = Invokers.forMethod(getName);
+		getIdInvoker = Invokers.forMethod(getId);
+		setNameInvoker = Invokers.forMethod(setName);
+	}
+
+	@Benchmark
+	public Object getObject_direct() {
+		return pet.getName();
+	}
+
+	@Benchmark
+	public Object getObject_invoker() throws Exception {
+		return getNameInvoker.invoke(pet);
+	}
+
+	@Benchmark
+	public Object getObject_reflection() throws Exception {
+		return getName.invoke(pet);
+	}
+
+	@Benchmark
+	public Object getPrimitive_direct() {
+		return pet.getId();
+	}
+
+	@Benchmark
+	public Object getPrimitive_invoker() throws Exception {
+		return getIdInvoker.invoke(pet);
+	}
+
+	@Benchmark
+	public Object getPrimitive_reflection() throws Exception {
+		return getId.invoke(pet);
+	}
+
+	@Benchmark
+	public void set_direct() {
+		pet.setName("Bob");
+	}
+
+	@Benchmark
+	public void set_invoker() throws Exception {
+		setNameInvoker.invoke(pet, "Bob");
+	}
+
+	@Benchmark
+	public void set_reflection() throws Exception {
+		setName.invoke(pet, "Bob");
+	}
+}
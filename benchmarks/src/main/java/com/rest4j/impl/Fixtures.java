@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.API;
+import com.rest4j.ApiFactory;
+import com.rest4j.ConfigurationException;
+import com.rest4j.Converter;
+import com.rest4j.FieldFilter;
+import com.rest4j.ObjectFactory;
+import com.rest4j.ServiceProvider;
+import com.rest4j.impl.model.Model;
+import com.rest4j.impl.petapi.Gender;
+import com.rest4j.impl.petapi.Pet;
+import com.rest4j.impl.petapi.PetMapping;
+import com.rest4j.impl.polymorphic.Cat;
+import com.rest4j.impl.recursive.Leaf;
+import com.rest4j.impl.recursive.Root;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds marshallers, APIs and sample objects from the test APIs of rest4j-core
+ * (petapi.xml, polymorphic-api.xml, recursive-patch.xml) for the benchmarks.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class Fixtures {
+
+	/**
+	 * Creates a marshaller for one of the test API descriptions, the same way MarshallerImplTest does.
+	 *
+	 * @param xml The API description resource name, e.g. "petapi.xml".
+	 * @param mapper The field mapper for models with a field-mapper attribute, or null.
+	 */
+	public static MarshallerImpl marshaller(String xml, Object mapper, ObjectFactory... objectFactories) throws JAXBException, ConfigurationException {
+		return marshaller(xml, mapper, new FieldFilter[0], objectFactories);
+	}
+
+	/**
+	 * Creates a marshaller with the given field filters.
+	 */
+	public static MarshallerImpl marshaller(String xml, Object mapper, FieldFilter[] fieldFilters, ObjectFactory... objectFactories) throws JAXBException, ConfigurationException {
+		JAXBContext context = JAXBContext.newInstance("com.rest4j.impl.model");
+		JAXBElement<com.rest4j.impl.model.API> element = (JAXBElement<com.rest4j.impl.model.API>) context.createUnmarshaller().unmarshal(Fixtures.class.getResourceAsStream(xml));
+		List<MarshallerImpl.ModelConfig> modelConfig = new ArrayList<MarshallerImpl.ModelConfig>();
+		for (Object entry: element.getValue().getEndpointAndModel()) {
+			if (entry instanceof Model) {
+				Model model = (Model) entry;
+				modelConfig.add(new MarshallerImpl.ModelConfig(model, model.getFieldMapper() == null ? null : mapper));
+			}
+		}
+		return new MarshallerImpl(modelConfig, objectFactories, fieldFilters, null);
+	}
+
+	/**
+	 * Creates the petapi.xml API with the given 'pets' service.
+	 */
+	public static API petApi(final Object pets) throws ConfigurationException {
+		ServiceProvider serviceProvider = new ServiceProvider() {
+			final PetMapping petMapping = new PetMapping();
+
+			@Override
+			public Object lookupService(String name) {
+				if ("pets".equals(name)) return pets;
+				return null;
+			}
+
+			@Override
+			public Object lookupFieldMapper(String model, String name) {
+				if ("petMapping".equals(name)) return petMapping;
+				return null;
+			}
+
+			@Override
+			public Converter lookupConverter(String name) {
+				return null;
+			}
+		};
+		return new ApiFactory(Fixtures.class.getResource("petapi.xml"), "/api/v2", serviceProvider).createAPI();
+	}
+
+	/**
+	 * A flat object of the petapi.xml 'Pet' model.
+	 */
+	public static Pet pet(int id) {
+		Pet pet = new Pet();
+		pet.setId(id);
+		pet.setType("cat");
+		pet.setName("Max");
+		pet.setGender(Gender.male);
+		pet.setPetWeight(4.3);
+		pet.setFriends(new ArrayList<Integer>(Arrays.asList(234, 235)));
+		pet.setMated(new ArrayList<Integer>());
+		pet.setAte(new ArrayList<Integer>(Arrays.asList(1)));
+		return pet;
+	}
+
+	/**
+	 * A nested object of the recursive-patch.xml 'Root' model: maps and arrays of 'Leaf' objects.
+	 */
+	public static Root root(int leaves) {
+		Root root = new Root();
+		root.setNumber(1);
+		Map<String, Integer> map = new HashMap<String, Integer>();
+		Map<String, Leaf> objectMap = new HashMap<String, Leaf>();
+		List<Leaf> array = new ArrayList<Leaf>();
+		for (int i = 0; i < leaves; i++) {
+			map.put("n" + i, i);
+			objectMap.put("leaf" + i, leaf(i));
+			array.add(leaf(i));
+		}
+		root.setMap(map);
+		root.setObjectMap(objectMap);
+		root.setObject(leaf(-1));
+		root.setArray(array);
+		return root;
+	}
+
+	static Leaf leaf(int i) {
+		Leaf leaf = new Leaf();
+		leaf.setString("leaf #" + i);
+		leaf.setNumber(i);
+		return leaf;
+	}
+
+	/**
+	 * A subclass object of the polymorphic-api.xml 'Pet' model.
+	 */
+	public static Cat cat() {
+		Cat cat = new Cat();
+		cat.setId(555);
+		cat.setLongFur(true);
+		return cat;
+	}
+}
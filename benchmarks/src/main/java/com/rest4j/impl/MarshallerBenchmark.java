@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import com.rest4j.FieldFilter;
+import com.rest4j.FieldFilterChain;
+import com.rest4j.impl.petapi.PetMapping;
+import com.rest4j.type.ApiType;
+import com.rest4j.type.Field;
+import com.rest4j.type.ObjectApiType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshalling and unmarshalling of a flat object (petapi.xml 'Pet'), a nested object with
+ * maps and arrays of 20 sub-objects (recursive-patch.xml 'Root') and a polymorphic object
+ * (polymorphic-api.xml 'Pet' as a 'Cat'). Marshalling is measured both to a JSON tree and
+ * streamed to JSON text without building the tree. With filters=passthrough a FieldFilter that
+ * does nothing is installed, which shows the cost of the filter chain calls.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MarshallerBenchmark {
+	@Param({"flat", "nested", "polymorphic"})
+	String model;
+
+	@Param({"none", "passthrough"})
+	String filters;
+
+	MarshallerImpl marshaller;
+	ApiType type;
+	Object object;
+	Object json;
+
+	@Setup
+	public void init() throws Exception {
+		FieldFilter[] fieldFilters = filters.equals("none") ? new FieldFilter[0] : new FieldFilter[] {new PassthroughFilter()};
+		if (model.equals("flat")) {
+			marshaller = Fixtures.marshaller("petapi.xml", new PetMapping(), fieldFilters);
+			type = marshaller.getObjectType("Pet");
+			object = Fixtures.pet(555);
+		} else if (model.equals("nested")) {
+			marshaller = Fixtures.marshaller("recursive-patch.xml", null, fieldFilters);
+			type = marshaller.getObjectType("Root");
+			object = Fixtures.root(20);
+		} else {
+			marshaller = Fixtures.marshaller("polymorphic-api.xml", new com.rest4j.impl.polymorphic.PetMapping(), fieldFilters, new com.rest4j.impl.polymorphic.ObjectFactory());
+			type = marshaller.getObjectType("Pet");
+			object = Fixtures.cat();
+		}
+		json = marshaller.marshal(type, object);
+	}
+
+	@Benchmark
+	public Object marshal() throws ApiException {
+		return marshaller.marshal(type, object);
+	}
+
+	@Benchmark
+	public int marshal_streaming() throws ApiException, IOException {
+		CountingWriter writer = new CountingWriter();
+		ApiTypeImpl.marshal(type, object, new JSONTextOutput(writer, 0));
+		return writer.count;
+	}
+
+	@Benchmark
+	public Object unmarshal() throws ApiException {
+		return marshaller.unmarshal(type, json);
+	}
+
+	static class PassthroughFilter implements FieldFilter {
+		@Override
+		public Object marshal(Object json, Object parentJavaObject, ObjectApiType parentType, Field field, FieldFilterChain next) {
+			return next.marshal(json, parentJavaObject, parentType, field);
+		}
+
+		@Override
+		public Object unmarshal(Object json, Object parentJavaObject, ObjectApiType parentType, Field field, FieldFilterChain next) {
+			return next.unmarshal(json, parentJavaObject, parentType, field);
+		}
+	}
+
+	/**
+	 * Only counts the characters, so that the marshalling is measured without the text buffering.
+	 */
+	static class CountingWriter extends Writer {
+		int count;
+
+		@Override
+		public void write(int c) {
+			count++;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.impl.model.StringWithParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route lookup in an API with 10, 100 or 1000 endpoints. Every resource has a collection
+ * route '/resN' and an item route '/resN/{id}'; the looked up paths are spread over all the
+ * resources, so that both early and late declared routes are measured.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RouterBenchmark {
+	@Param({"10", "100", "1000"})
+	int endpoints;
+
+	Router<Integer> router;
+	String[] collectionPaths;
+	String[] itemPaths;
+	int next;
+
+	@Setup
+	public void init() {
+		router = new Router<Integer>();
+		int resources = endpoints / 2;
+		collectionPaths = new String[resources];
+		itemPaths = new String[resources];
+		for (int i = 0; i < resources; i++) {
+			router.add(route("/res" + i), "GET", 2 * i);
+			router.add(route("/res" + i + "/", param("id")), "GET", 2 * i + 1);
+			collectionPaths[i] = "/res" + i;
+			itemPaths[i] = "/res" + i + "/" + (1000 + i);
+		}
+	}
+
+	@Benchmark
+	public Object collection() {
+		return router.match(collectionPaths[nextIndex()]).find("GET");
+	}
+
+	@Benchmark
+	public Object itemWithParam() {
+		return router.match(itemPaths[nextIndex()]).find("GET");
+	}
+
+	@Benchmark
+	public boolean notFound() {
+		return router.match("/nothing/here").isEmpty();
+	}
+
+	private int nextIndex() {
+		if (++next == collectionPaths.length) next = 0;
+		return next;
+	}
+
+	static StringWithParams route(Serializable... parts) {
+		StringWithParams route = new StringWithParams();
+		for (Serializable part: parts) {
+			route.getContent().add(part);
+		}
+		return route;
+	}
+
+	static JAXBElement<String> param(String name) {
+		return new JAXBElement<String>(new QName("param"), String.class, name);
+	}
+}
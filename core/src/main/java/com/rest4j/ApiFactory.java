@@ -18,12 +18,15 @@
 package com.rest4j;
 
 import com.rest4j.impl.APIImpl;
+import com.rest4j.impl.ApiSnapshot;
 import com.rest4j.impl.DefaultsPreprocessor;
+import com.rest4j.impl.JmxMetricsSink;
 import org.apache.commons.lang.StringUtils;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+import javax.management.JMException;
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -36,10 +39,15 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Creates the instance of {@link API} from the given XML API description in XML.
@@ -47,7 +55,13 @@ import java.util.List;
  * @author Joseph Kapizza <joseph@rest4j.com>
  */
 public class ApiFactory {
+	// JAXB contexts and schemas are thread-safe and expensive to create, so they are shared by all the factories.
+	// They are keyed weakly by the ext ObjectFactory (null for none) and softly referenced, as they reference
+	// the application classes too, so that an undeployed application can be unloaded.
+	private static final Map<Class, Map<String, SoftReference<JaxbConfig>>> jaxbConfigs = new WeakHashMap<Class, Map<String, SoftReference<JaxbConfig>>>();
+
 	URL apiDescriptionXml;
+	URL snapshot;
 	String pathPrefix;
 	ServiceProvider serviceProvider;
 	List<ObjectFactory> factories = new ArrayList<ObjectFactory>();
@@ -56,6 +70,8 @@ public class ApiFactory {
 	String extSchema;
 	Class extObjectFactory;
 	private PermissionChecker permissionChecker;
+	private MetricsSink metricsSink;
+	private String jmxName;
 
 	/**
 	 * Create a factory that can be used to create API objects. This constructor does not accept ObjectFactories.
@@ -120,6 +136,22 @@ public class ApiFactory {
 		this.extObjectFactory = extObjectFactory;
 	}
 
+	/**
+	 * Sets the binary snapshot of the API model, written at build time by the generator module from the same
+	 * API description. When it is set, {@link #createAPI()} reads the model from the snapshot, skipping the XML
+	 * parsing, schema validation and preprocessing, so the preprocessors are not called.
+	 *
+	 * @param snapshot The snapshot URL, usually a classpath resource; null to read the XML.
+	 * @see ApiSnapshot
+	 */
+	public void setSnapshot(URL snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public URL getSnapshot() {
+		return snapshot;
+	}
+
 	public URL getApiDescriptionXml() {
 		return apiDescriptionXml;
 	}
@@ -161,36 +193,43 @@ public class ApiFactory {
 	 * @throws ConfigurationException When there is a problem with your XML description.
 	 */
 	public API createAPI() throws ConfigurationException {
+		com.rest4j.impl.model.API root = snapshot == null ? readModel() : readSnapshot();
+		APIImpl api;
+		api = new APIImpl(root, pathPrefix, serviceProvider,
+				factories.toArray(new ObjectFactory[factories.size()]),
+				fieldFilters.toArray(new FieldFilter[fieldFilters.size()]),
+				permissionChecker
+				);
+		if (metricsSink != null) {
+			api.setMetricsSink(metricsSink);
+		} else if (jmxName != null) {
+			JmxMetricsSink jmxSink = new JmxMetricsSink(jmxName);
+			try {
+				jmxSink.register();
+			} catch (JMException e) {
+				throw new ConfigurationException("Cannot register MBean " + jmxSink.getObjectName(), e);
+			}
+			api.setMetricsSink(jmxSink);
+		}
+		return api;
+	}
+
+	/**
+	 * Reads the API description XML into the JAXB model. The XML is preprocessed, schema-validated and
+	 * unmarshalled, including the &lt;extra> tags of the ext schema, if any.
+	 *
+	 * @return The model the API instance is created from.
+	 * @throws ConfigurationException When there is a problem with your XML description.
+	 */
+	public com.rest4j.impl.model.API readModel() throws ConfigurationException {
 		try {
-			JAXBContext context;
-			if (extObjectFactory == null)
-				context = JAXBContext.newInstance(com.rest4j.impl.model.ObjectFactory.class);
-			else
-				context = JAXBContext.newInstance(com.rest4j.impl.model.ObjectFactory.class, extObjectFactory);
+			JaxbConfig config = getJaxbConfig();
 			Document xml = getDocument();
 
-			SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-			Source apiXsdSource = new StreamSource(getClass().getResourceAsStream("api.xsd"));
-			List<Source> xsds = new ArrayList<Source>();
-			xsds.add(apiXsdSource);
-			Schema schema;
-			if (!StringUtils.isEmpty(extSchema)) {
-				xsds.add(new StreamSource(getClass().getClassLoader().getResourceAsStream(extSchema)));
-			}
-			xsds.add(new StreamSource(getClass().getResourceAsStream("html.xsd")));
-			schema = schemaFactory.newSchema(xsds.toArray(new Source[xsds.size()]));
-
-			Unmarshaller unmarshaller = context.createUnmarshaller();
-			unmarshaller.setSchema(schema);
+			Unmarshaller unmarshaller = config.context.createUnmarshaller();
+			unmarshaller.setSchema(config.schema);
 			JAXBElement<com.rest4j.impl.model.API> element = (JAXBElement<com.rest4j.impl.model.API>) unmarshaller.unmarshal(xml);
-			com.rest4j.impl.model.API root = element.getValue();
-			APIImpl api;
-			api = new APIImpl(root, pathPrefix, serviceProvider,
-					factories.toArray(new ObjectFactory[factories.size()]),
-					fieldFilters.toArray(new FieldFilter[fieldFilters.size()]),
-					permissionChecker
-					);
-			return api;
+			return element.getValue();
 		} catch (javax.xml.bind.UnmarshalException e) {
 			if (e.getLinkedException() instanceof SAXParseException) {
 				SAXParseException spe = (SAXParseException)e.getLinkedException();
@@ -206,6 +245,66 @@ public class ApiFactory {
 		}
 	}
 
+	private com.rest4j.impl.model.API readSnapshot() throws ConfigurationException {
+		try {
+			InputStream in = snapshot.openStream();
+			try {
+				return ApiSnapshot.read(in, extObjectFactory);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new ConfigurationException("Cannot read the API snapshot " + snapshot, e);
+		}
+	}
+
+	private JaxbConfig getJaxbConfig() throws Exception {
+		synchronized (jaxbConfigs) {
+			Map<String, SoftReference<JaxbConfig>> bySchema = jaxbConfigs.get(extObjectFactory);
+			SoftReference<JaxbConfig> ref = bySchema == null ? null : bySchema.get(extSchema);
+			JaxbConfig config = ref == null ? null : ref.get();
+			if (config != null) return config;
+		}
+
+		JAXBContext context;
+		if (extObjectFactory == null)
+			context = JAXBContext.newInstance(com.rest4j.impl.model.ObjectFactory.class);
+		else
+			context = JAXBContext.newInstance(com.rest4j.impl.model.ObjectFactory.class, extObjectFactory);
+
+		SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		Source apiXsdSource = new StreamSource(getClass().getResourceAsStream("api.xsd"));
+		List<Source> xsds = new ArrayList<Source>();
+		xsds.add(apiXsdSource);
+		Schema schema;
+		if (!StringUtils.isEmpty(extSchema)) {
+			xsds.add(new StreamSource(getClass().getClassLoader().getResourceAsStream(extSchema)));
+		}
+		xsds.add(new StreamSource(getClass().getResourceAsStream("html.xsd")));
+		schema = schemaFactory.newSchema(xsds.toArray(new Source[xsds.size()]));
+
+		JaxbConfig config = new JaxbConfig(context, schema);
+		synchronized (jaxbConfigs) {
+			Map<String, SoftReference<JaxbConfig>> bySchema = jaxbConfigs.get(extObjectFactory);
+			if (bySchema == null) {
+				bySchema = new HashMap<String, SoftReference<JaxbConfig>>();
+				jaxbConfigs.put(extObjectFactory, bySchema);
+			}
+			bySchema.put(extSchema, new SoftReference<JaxbConfig>(config));
+		}
+		return config;
+	}
+
+	static class JaxbConfig {
+		final JAXBContext context;
+		final Schema schema;
+
+		JaxbConfig(JAXBContext context, Schema schema) {
+			this.context = context;
+			this.schema = schema;
+		}
+	}
+
 	/**
 	 * This method can be used to just read the API description XML into a DOM. The XML is schema-validated
 	 * and preprocessed with the preprocessors that were added with {@link #addPreprocessor(Preprocessor)}.
@@ -235,4 +334,20 @@ public class ApiFactory {
 	public void setPermissionChecker(PermissionChecker permissionChecker) {
 		this.permissionChecker = permissionChecker;
 	}
+
+	/**
+	 * Receives the time breakdown, sizes and status of every request. Without a sink (the default)
+	 * requests are not measured at all.
+	 */
+	public void setMetricsSink(MetricsSink metricsSink) {
+		this.metricsSink = metricsSink;
+	}
+
+	/**
+	 * Publishes per-endpoint metrics as the JMX MBean "com.rest4j:type=API,name=&lt;jmxName>",
+	 * using {@link JmxMetricsSink}. Ignored when a custom sink is set with {@link #setMetricsSink(MetricsSink)}.
+	 */
+	public void setJmxName(String jmxName) {
+		this.jmxName = jmxName;
+	}
 }
@@ -81,6 +81,32 @@ public abstract class ApiRequest {
 	 */
 	public abstract JSONArray arrayInput() throws IOException, ApiException;
 
+	/**
+	 * Return the elements of the JSON array that was sent as the request body, one by one. This method
+	 * is called instead of {@link #arrayInput()} when the service method takes the body as an Iterator
+	 * or Iterable, so that the array never has to be kept in memory as a whole. The default implementation
+	 * iterates over arrayInput(); the servlet implementation parses the elements while they are read
+	 * from the request stream.
+	 *
+	 * @throws ApiException If the body does not start as a JSON array.
+	 */
+	public ArrayElements arrayElements() throws IOException, ApiException {
+		final JSONArray array = arrayInput();
+		return new ArrayElements() {
+			int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return array != null && i < array.length();
+			}
+
+			@Override
+			public Object next() {
+				return array.opt(i++);
+			}
+		};
+	}
+
 	/**
 	 * Return the request body as binary stream. This method is called only once, when Rest4j expects
 	 * the request body in the binary form (&lt;binary> tag in the API XML description). null if there is no
@@ -110,4 +136,20 @@ public abstract class ApiRequest {
 		return new ApiRequestServletImpl(request);
 	}
 
+	/**
+	 * A forward-only sequence of JSON array elements returned by {@link #arrayElements()}.
+	 * The elements are JSONObject, JSONArray, String, Number, Boolean or JSONObject.NULL.
+	 */
+	public interface ArrayElements {
+		/**
+		 * @throws ApiException If the body is not a well-formed JSON array.
+		 */
+		boolean hasNext() throws IOException, ApiException;
+
+		/**
+		 * @throws ApiException If the body is not a well-formed JSON array.
+		 */
+		Object next() throws IOException, ApiException;
+	}
+
 }
@@ -34,6 +34,7 @@ public class BinaryResource extends ResourceBase {
 
 	private String etag;
 	private InputStream is;
+	private long length = -1;
 
 	public BinaryResource(String contentType, String etag, InputStream is) {
 		super(contentType);
@@ -48,6 +49,15 @@ public class BinaryResource extends ResourceBase {
 	public BinaryResource(byte[] content) {
 		super("application/octet-stream");
 		this.is = new ByteArrayInputStream(content);
+		this.length = content.length;
+	}
+
+	/**
+	 * The length of the content in bytes, or -1 if it is read from a stream and not known in advance.
+	 * Content of unknown length is streamed to the client instead of being buffered.
+	 */
+	public long getContentLength() {
+		return length;
 	}
 
 	@Override
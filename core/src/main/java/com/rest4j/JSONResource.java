@@ -21,11 +21,11 @@ import com.rest4j.impl.ResourceBase;
 import com.rest4j.json.JSONArray;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
+import com.rest4j.json.UTF8Writer;
 import com.rest4j.type.ApiType;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 
 /**
  * A {@link Resource} that represents a JSON object or an array. Has Content-Type: application/json; charset=utf-8
@@ -67,7 +67,7 @@ public class JSONResource extends ResourceBase {
 
 	@Override
 	public void write(OutputStream outputStream) throws IOException {
-		OutputStreamWriter writer = new OutputStreamWriter(outputStream);
+		UTF8Writer writer = new UTF8Writer(outputStream);
 		try {
 			if (object instanceof JSONObject) {
 				((JSONObject) object).write(writer, isPrettify() ? 2 : 0);
@@ -79,6 +79,8 @@ public class JSONResource extends ResourceBase {
 			if (ex.getCause() instanceof IOException) {
 				throw (IOException)ex.getCause();
 			}
+		} finally {
+			writer.release();
 		}
 	}
 
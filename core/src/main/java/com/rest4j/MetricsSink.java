@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j;
+
+import com.rest4j.impl.RequestMetrics;
+
+/**
+ * Receives the time breakdown and sizes of every request served by an {@link API}. Set with
+ * {@link ApiFactory#setMetricsSink(MetricsSink)}; without a sink no timing is done at all.
+ * {@link com.rest4j.impl.JmxMetricsSink} is the default implementation that publishes
+ * per-endpoint statistics as a JMX MBean.
+ *
+ * <p>The record is made after the response body is output with {@link ApiResponse#outputBody},
+ * including error responses created with {@link ApiException#createResponse()}. Implementations
+ * are called concurrently from the request threads and should be fast and non-blocking.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public interface MetricsSink {
+	void record(RequestMetrics metrics);
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j;
+
+import com.rest4j.impl.Params;
+
+/**
+ * Tells the current version of the resource served by a GET endpoint without loading it, e.g. a row version
+ * or the last modification time. Declared with the 'version-resolver' attribute of the endpoint
+ * and looked up by name with {@link ServiceProvider#lookupService(String)}.
+ *
+ * <p>Conditional GETs are then answered with 304 without calling the service method, and the version
+ * is used as the ETag instead of a hash of the response body. So the version should change whenever
+ * the response does.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public interface VersionResolver {
+	/**
+	 * @param params The path and querystring parameters of the request, as declared for the endpoint.
+	 * @return The version token, or null if it is unknown; then the response is served as usual.
+	 * The token should not contain double quotes.
+	 * @throws ApiException Like the service method would, e.g. 404 for a resource that does not exist.
+	 */
+	String getVersion(Params params) throws ApiException;
+}
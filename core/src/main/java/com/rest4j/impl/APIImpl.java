@@ -30,15 +30,18 @@ import com.rest4j.type.SimpleApiType;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 /**
  * @author Joseph Kapizza <joseph@rest4j.com>
@@ -48,8 +51,10 @@ public class APIImpl implements API {
 	final String pathPrefix;
 	final MarshallerImpl marshaller;
 	final List<EndpointMapping> endpoints = new ArrayList<EndpointMapping>();
+	final Router<EndpointMapping> router = new Router<EndpointMapping>();
 	final ResourceFactory resourceFactory;
 	final APIParams params;
+	MetricsSink metricsSink;
 
 	public APIImpl(com.rest4j.impl.model.API root, String pathPrefix, ServiceProvider serviceProvider) throws ConfigurationException {
 		this(root, pathPrefix, serviceProvider, new ObjectFactory[0]);
@@ -68,6 +73,13 @@ public class APIImpl implements API {
 		this.root = root;
 		if (root.getParams() == null) this.params = new APIParams();
 		else this.params = root.getParams();
+		// the schema checks these too, but the model might come from a snapshot or be built in code
+		if (params.getCompressionLevel() != null && (params.getCompressionLevel() < Deflater.DEFAULT_COMPRESSION || params.getCompressionLevel() > Deflater.BEST_COMPRESSION)) {
+			throw new ConfigurationException("compression-level should be from -1 to 9: "+params.getCompressionLevel());
+		}
+		if (params.getCompressionThreshold() != null && params.getCompressionThreshold() < 0) {
+			throw new ConfigurationException("compression-threshold should not be negative: "+params.getCompressionThreshold());
+		}
 
 		// configure and create marshaller
 		List<MarshallerImpl.ModelConfig> modelConfig = new ArrayList<MarshallerImpl.ModelConfig>();
@@ -87,26 +99,41 @@ public class APIImpl implements API {
 		marshaller = new MarshallerImpl(modelConfig, factories, fieldFilters, serviceProvider);
 
 		// create resourceFactory
-		resourceFactory = new ResourceFactory(marshaller);
+		resourceFactory = new ResourceFactory(marshaller, params);
 
 		// create endpoint mappings
 		for (Object child: root.getEndpointAndModel()) {
 			if (child instanceof Endpoint) {
 				Endpoint endpoint = (Endpoint)child;
-				endpoints.add(new EndpointMapping(endpoint, serviceProvider, permissionChecker));
+				EndpointMapping mapping = new EndpointMapping(endpoint, serviceProvider, permissionChecker);
+				endpoints.add(mapping);
+				router.add(endpoint.getRoute(), mapping.httpMethod, mapping);
 			}
 		}
 	}
 
+	/**
+	 * Enables per-request metrics. When the sink is null (the default), nothing is measured.
+	 */
+	public void setMetricsSink(MetricsSink metricsSink) {
+		this.metricsSink = metricsSink;
+	}
+
+	public MetricsSink getMetricsSink() {
+		return metricsSink;
+	}
+
 	class APIExceptionWrapper extends ApiException {
 		ApiRequest request;
 		ApiException ex;
+		RequestMetrics metrics;
 
-		APIExceptionWrapper(ApiRequest request, ApiException ex) {
+		APIExceptionWrapper(ApiRequest request, ApiException ex, RequestMetrics metrics) {
 			super(ex.getMessage());
 			setHttpStatus(ex.getHttpStatus());
 			this.request = request;
 			this.ex = ex;
+			this.metrics = metrics;
 		}
 
 		@Override
@@ -131,9 +158,11 @@ public class APIImpl implements API {
 
 		@Override
 		public ApiResponse createResponse() {
-			return createApiResponse(request, getJSONResponse() )
+			ApiResponseImpl response = createApiResponse(request, getJSONResponse() )
 					.setStatus(getHttpStatus(), getMessage())
 					.addHeader("Cache-control", "must-revalidate,no-cache,no-store");
+			response.metrics = metrics;
+			return response;
 		}
 
 		@Override
@@ -145,11 +174,24 @@ public class APIImpl implements API {
 
 	@Override
 	public ApiResponse serve(ApiRequest request) throws IOException, ApiException {
+		RequestMetrics metrics = metricsSink == null ? null : new RequestMetrics(contentLength(request));
 		try {
-			return serveInt(request);
+			ApiResponseImpl response = serveInt(request, metrics);
+			response.metrics = metrics;
+			return response;
 		} catch (ApiException ex) {
 			// wrap exceptions and implements createResponse()
-			throw new APIExceptionWrapper(request, ex);
+			throw new APIExceptionWrapper(request, ex, metrics);
+		}
+	}
+
+	private static long contentLength(ApiRequest request) {
+		String header = request.header("Content-Length");
+		if (header == null) return 0;
+		try {
+			return Long.parseLong(header.trim());
+		} catch (NumberFormatException e) {
+			return 0;
 		}
 	}
 
@@ -158,57 +200,173 @@ public class APIImpl implements API {
 		return new ApiResponseImpl(this, request, resource);
 	}
 
-	ApiResponse serveInt(ApiRequest request) throws IOException, ApiException {
+	ApiResponseImpl serveInt(ApiRequest request, RequestMetrics metrics) throws IOException, ApiException {
 
 		if (!request.path().startsWith(pathPrefix)) {
 			throw new ApiException("Wrong path: " + request.path() + ", does not match the path prefix '" + pathPrefix + "'").setHttpStatus(404);
 		}
+		if (params.getMaxBodySize() != null) {
+			limitBodySize(request, params.getMaxBodySize());
+		}
+		String path = getPath(request);
+		Router.Match<EndpointMapping> match = router.match(path);
 		if (request.method().equals("OPTIONS")) {
-			try {
-				findEndpoint(request);
-			} catch (ApiException apiex) {
-				if (apiex.getHttpStatus() != 405) {
-					throw apiex;
-				}
+			if (match.isEmpty()) {
+				throw new ApiException("File not found").setHttpStatus(404);
 			}
 			// enable cross-domain queries
 			return createApiResponse(request, null)
 					.addHeader("Access-Control-Allow-Origin", "*")
-					.addHeader("Access-Control-Allow-Methods", getAllowedMethodsString(request))
+					.addHeader("Access-Control-Allow-Methods", getAllowedMethodsString(match))
 					.addHeader("Access-Control-Max-Age", "10000000");
 		}
-		EndpointMapping endpoint = findEndpoint(request);
+		RouteMatch<EndpointMapping> route = findRoute(match, request.method());
+		EndpointMapping endpoint = route.target;
+		if (metrics != null) {
+			metrics.endpoint = endpoint.name;
+			metrics.lap(RequestMetrics.Phase.ROUTING);
+		}
 
 		if (endpoint.httpsonly && !request.https()) {
 			throw new ApiException( "This request can only be sent over HTTPS.");
 		}
+		ParamsImpl resolvedParams = null;
+		String version = null;
+		// taken before anything is read, so that a response produced during a change is not cached
+		long cacheGeneration = endpoint.cache == null ? 0 : endpoint.cache.generation(path);
+		if (endpoint.versionResolver != null) {
+			// a cheap conditional GET, without calling the service
+			resolvedParams = endpoint.parseParams(request, route, metrics);
+			endpoint.checkPermission(request, metrics);
+			version = endpoint.getVersion(resolvedParams);
+			if (version != null && request.header("If-None-Match") != null && parseList(request.header("If-None-Match")).contains(version)) {
+				throw new ApiException("Not modified").setHttpStatus(304).addHeader("ETag", version);
+			}
+		}
+		ResponseCache.Key cacheKey = endpoint.cache == null ? null : endpoint.cacheKey(request, route, path);
+		Resource result = cacheKey == null ? null : endpoint.cache.get(cacheKey);
+		if (result != null && version != null && !version.equals(result.getETag())) {
+			result = null; // cached before the resource changed
+		}
 		Object getResult = null;
 		if (!request.method().equals("GET")) {
-			ApiRequest get = changeMethod(request, "GET");
 			try {
-				EndpointMapping getEndpoint = findEndpoint(get);
-				if (request.header("If-Match") != null || endpoint.isPatch()) {
+				RouteMatch<EndpointMapping> getRoute = findRoute(match, "GET");
+				EndpointMapping getEndpoint = getRoute.target;
+				boolean ifMatch = request.header("If-Match") != null;
+				ParamsImpl getParams = null;
+				String etag = null;
+				if (ifMatch && getEndpoint.hasCurrentETag()) {
+					// parsed and checked once, even if the GET has to be performed anyway
+					getParams = getEndpoint.parseParams(request, getRoute, metrics);
+					getEndpoint.checkPermission(request, metrics);
+					etag = getEndpoint.getCurrentETag(request, getRoute, path, getParams);
+					// known without invoking the service, so a mismatch fails before a PATCH reads the resource
+					if (etag != null) checkIfMatch(request, etag);
+				}
+				if (ifMatch && etag == null || endpoint.isPatch()) {
 					// first perform GET, then decide if we should change the resource
-					getResult = getEndpoint.invokeRaw(request, null);
+					getResult = getParams == null
+							? getEndpoint.invokeRaw(request, getRoute, null, metrics)
+							: getEndpoint.invokeRaw(request, getParams, null, metrics);
 				}
-				if (request.header("If-Match") != null) {
-					Resource getResource = resourceFactory.createResourceFrom(getResult, getEndpoint.getResponseContentType());
-					if (!parseList(request.header("If-Match")).contains(getResource.getETag())) {
-						throw new ApiException("Precondition failed").setHttpStatus(412);
+				if (ifMatch && etag == null) {
+					Resource current = null;
+					try {
+						current = resourceFactory.createResourceFrom(getResult, getEndpoint.getResponseContentType(), getEndpoint.responseType);
+						etag = current == null ? null : getETag(current);
+					} finally {
+						// the GET result is never written, so nothing else closes a cursor or a stream
+						if (!endpoint.isPatch() && getResult instanceof Closeable) {
+							((Closeable) getResult).close();
+						}
 					}
+					if (metrics != null) metrics.lap(RequestMetrics.Phase.MARSHALLING);
+					checkIfMatch(request, etag);
 				}
 			} catch (ApiException ex) {
 				if (ex.getHttpStatus() != 405) throw ex;
 			}
 		}
-		Resource result = endpoint.invoke(request, getResult);
-		if (request.header("If-None-Match") != null && request.method().equals("GET") && result != null) {
-			String etag = result.getETag();
-			if (parseList(request.header("If-None-Match")).contains(etag)) {
+		if (result != null) {
+			if (resolvedParams == null) endpoint.checkPermission(request, metrics);
+		} else {
+			try {
+				result = resolvedParams == null
+						? endpoint.invoke(request, route, getResult, metrics)
+						: endpoint.invoke(request, resolvedParams, version, metrics);
+			} finally {
+				// the resource might have changed even if the service failed halfway
+				if (!request.method().equals("GET")) invalidateCache(match, path);
+			}
+			if (cacheKey != null && result != null) {
+				String etag = version != null ? version : params.getEtagMode() == ETagMode.DIGEST ? null : result.getETag();
+				result = endpoint.cache.store(cacheKey, cacheGeneration, result, etag, ApiResponseImpl.isPrettify(params, request),
+						params.getCompressionThreshold() == null ? 0 : params.getCompressionThreshold(),
+						params.getCompressionLevel() == null ? Deflater.DEFAULT_COMPRESSION : params.getCompressionLevel());
+				if (metrics != null) metrics.lap(RequestMetrics.Phase.MARSHALLING);
+			}
+		}
+		ApiResponseImpl response = new ApiResponseImpl(this, request, result).addHeader("Vary", endpoint.vary);
+		response.etag = version;
+		if (request.method().equals("GET") && result != null && version == null) {
+			// a buffered body is encoded (and hashed) here, so that marshalling errors are reported as API errors
+			String etag;
+			try {
+				etag = response.getETag();
+			} catch (IOException e) {
+				if (e.getCause() instanceof ApiException) throw (ApiException) e.getCause();
+				throw e;
+			} catch (IllegalStateException e) {
+				if (e.getCause() instanceof ApiException) throw (ApiException) e.getCause();
+				throw e;
+			}
+			if (metrics != null) metrics.lap(RequestMetrics.Phase.MARSHALLING);
+			if (request.header("If-None-Match") != null && parseList(request.header("If-None-Match")).contains(etag)) {
 				throw new ApiException("Not modified").setHttpStatus(304).addHeader("ETag", etag);
 			}
 		}
-		return new ApiResponseImpl(this, request, result).addHeader("Vary", "Accept-Encoding");
+		return response;
+	}
+
+	/**
+	 * Drops the cached GET responses for the given path, with any parameters. Call this when the
+	 * resource is changed by other means than the non-GET endpoints on the same route.
+	 *
+	 * @param path The request path, including the path prefix.
+	 */
+	public void invalidateCache(String path) {
+		if (!path.startsWith(pathPrefix)) return;
+		path = path.substring(pathPrefix.length());
+		invalidateCache(router.match(path), path);
+	}
+
+	private void invalidateCache(Router.Match<EndpointMapping> match, String path) {
+		RouteMatch<EndpointMapping> route = match.find("GET");
+		if (route != null && route.target.cache != null) route.target.cache.invalidate(path);
+	}
+
+	/**
+	 * Drops all the cached responses.
+	 */
+	public void clearCache() {
+		for (EndpointMapping endpoint: endpoints) {
+			if (endpoint.cache != null) endpoint.cache.clear();
+		}
+	}
+
+	/**
+	 * Applies the max-body-size API parameter to the default request implementation,
+	 * unless the request already has its own limit.
+	 */
+	static void limitBodySize(ApiRequest request, long maxBodySize) {
+		while (request instanceof DelegatingApiRequest) {
+			request = ((DelegatingApiRequest) request).peer;
+		}
+		if (request instanceof ApiRequestServletImpl) {
+			ApiRequestServletImpl servletRequest = (ApiRequestServletImpl) request;
+			if (servletRequest.getMaxBodySize() < 0) servletRequest.setMaxBodySize(maxBodySize);
+		}
 	}
 
 	APIParams getParams() {
@@ -216,7 +374,7 @@ public class APIImpl implements API {
 	}
 
 	interface ArgHandler {
-		Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException;
+		Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException;
 	}
 
 	class EndpointMapping {
@@ -224,9 +382,17 @@ public class APIImpl implements API {
 		Endpoint endpoint;
 		StringWithParamsMatcher pathMatcher;
 		String httpMethod;
+		final String name; // like GET /pets/{id}
 		Object service;
 		Method method;
 		ArgHandler[] args;
+		ApiType responseType; // for JSON responses
+		final ParamParser[] paramParsers; // in the order of the endpoint parameters
+		final Map<String, Integer> paramSlots; // parameter name to its index in paramParsers
+		final ResponseCache cache; // null unless the endpoint has the <cache> tag
+		final String[] varyHeaders; // request headers the cached responses depend on
+		final String vary; // the Vary response header
+		final VersionResolver versionResolver; // null unless the endpoint has the version-resolver attribute
 		public boolean httpsonly;
 		private boolean patch;
 
@@ -235,6 +401,7 @@ public class APIImpl implements API {
 			endpoint = ep;
 			pathMatcher = new StringWithParamsMatcher(ep.getRoute());
 			httpMethod = ep.getHttp().name();
+			name = httpMethod + " " + pathMatcher.template;
 			service = serviceProvider.lookupService(ep.getService().getName());
 			httpsonly = ep.isHttpsonly();
 			patch = ep.getBody() != null && ep.getBody().getPatch() != null;
@@ -254,6 +421,43 @@ public class APIImpl implements API {
 				throw new ConfigurationException("Cannot find non-static method with name "+method+" in "+ nonSyntheticClass);
 			}
 
+			List<Parameter> parameters = ep.getParameters().getParameter();
+			paramParsers = new ParamParser[parameters.size()];
+			paramSlots = new HashMap<String, Integer>();
+			for (int i = 0; i < paramParsers.length; i++) {
+				paramParsers[i] = ParamParser.create(parameters.get(i));
+				paramSlots.put(parameters.get(i).getName(), i);
+			}
+
+			if (ep.getVersionResolver() == null) {
+				versionResolver = null;
+			} else {
+				if (ep.getHttp() != HttpMethod.GET) {
+					throw new ConfigurationException("Only GET endpoints can have a version resolver: "+name);
+				}
+				Object resolver = serviceProvider.lookupService(ep.getVersionResolver());
+				if (!(resolver instanceof VersionResolver)) {
+					throw new ConfigurationException("No VersionResolver found with name "+ep.getVersionResolver());
+				}
+				versionResolver = (VersionResolver) resolver;
+			}
+
+			EndpointCache cacheConfig = ep.getCache();
+			if (cacheConfig == null) {
+				cache = null;
+				varyHeaders = new String[0];
+			} else {
+				if (ep.getHttp() != HttpMethod.GET) {
+					throw new ConfigurationException("Only GET endpoints can be cached: "+name);
+				}
+				if (cacheConfig.getTtl() <= 0 || cacheConfig.getMaxEntries() <= 0 || cacheConfig.getMaxSize() <= 0) {
+					throw new ConfigurationException("Cache ttl, max-entries and max-size should be positive: "+name);
+				}
+				cache = new ResponseCache(cacheConfig.getTtl() * 1000L, cacheConfig.getMaxEntries(), cacheConfig.getMaxSize() * 1024L);
+				varyHeaders = cacheConfig.getVary() == null ? new String[0] : StringUtils.stripAll(StringUtils.split(cacheConfig.getVary(), ','));
+			}
+			vary = varyHeaders.length == 0 ? "Accept-Encoding" : "Accept-Encoding, " + StringUtils.join(varyHeaders, ", ");
+
 			int argCount = this.method.getParameterTypes().length;
 			String[] paramNames;
 			try {
@@ -287,7 +491,7 @@ public class APIImpl implements API {
 						paramsParamFound = true;
 						args[i] = new ArgHandler() {
 							@Override
-							public Object get(ApiRequest request, Object getResponse, Params params) {
+							public Object get(ApiRequest request, Object getResponse, ParamsImpl params) {
 								return params;
 							}
 						};
@@ -298,14 +502,14 @@ public class APIImpl implements API {
 						requestParamFound = true;
 						args[i] = new ArgHandler() {
 							@Override
-							public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+							public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 								return request;
 							}
 						};
 					} else if ((fieldMapping = checkFieldAsArgument(name, paramType)) != null) {
 						args[i] = new ArgHandler() {
 							@Override
-							public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+							public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 								Object val = request.objectInput().opt(name);
 								try {
 									val = val == null ? null : marshaller.unmarshal(fieldMapping.getType(), val);
@@ -341,7 +545,7 @@ public class APIImpl implements API {
 					final SimpleApiType paramApiType;
 					final Object defaultValue;
 					try {
-						defaultValue = param.getDefault() == null ? null : parseParam(param, StringEscapeUtils.unescapeJavaScript(param.getDefault()));
+						defaultValue = param.getDefault() == null ? null : ParamParser.create(param).parseValue(StringEscapeUtils.unescapeJavaScript(param.getDefault()));
 						paramApiType = marshaller.createSimpleType(param.getType(), enumValues);
 					} catch (ApiException e) {
 						throw new ConfigurationException("Cannot parse default param value "+param.getDefault()+": "+e.getMessage());
@@ -349,11 +553,11 @@ public class APIImpl implements API {
 					if (!paramApiType.check(paramType)) {
 						throw new ConfigurationException("Wrong argument '"+name+"' type: expected "+paramApiType.getJavaName());
 					}
-					final String paramName = param.getName();
+					final int slot = paramSlots.get(param.getName());
 					args[i] = new ArgHandler() {
 						@Override
-						public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
-							Object value = params.get(paramName);
+						public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
+							Object value = params.get(slot);
 							if (value == null) value = defaultValue;
 							return paramApiType.cast(value, paramType);
 						}
@@ -363,6 +567,9 @@ public class APIImpl implements API {
 
 			if (endpoint.getResponse() != null) {
 				resourceFactory.checkContentType(endpoint.getResponse(), this.method);
+				if (endpoint.getResponse().getJson() != null) {
+					responseType = resourceFactory.getApiType(endpoint.getResponse());
+				}
 			}
 		}
 
@@ -392,7 +599,7 @@ public class APIImpl implements API {
 				expect = InputStream.class;
 				argHandler = new ArgHandler() {
 					@Override
-					public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+					public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 						return request.binaryInput();
 					}
 				};
@@ -400,19 +607,23 @@ public class APIImpl implements API {
 				expect = Reader.class;
 				argHandler = new ArgHandler() {
 					@Override
-					public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+					public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 						return request.textInput();
 					}
 				};
 			} else {
 				if (contentType.getJson() != null) {
 					final ApiType apiType = resourceFactory.getApiType(contentType);
+					Class rawType = Util.getClass(type);
+					if (apiType instanceof ArrayApiType && (rawType == Iterator.class || rawType == Iterable.class)) {
+						return checkElementStream(contentType, ((ArrayApiType) apiType).getElementType(), type, rawType == Iterable.class);
+					}
 					if (!apiType.check(type)) {
 						throw new ConfigurationException("Body argument of " + this.method + " is expected to be "+apiType.getJavaName());
 					}
 					argHandler = new ArgHandler() {
 						@Override
-						public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+						public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 							Object object;
 							try {
 								if (apiType instanceof ArrayApiType) {
@@ -444,7 +655,7 @@ public class APIImpl implements API {
 								final ObjectApiTypeImpl objectType = marshaller.getObjectType(patchType.getType());
 								return new ArgHandler() {
 									@Override
-									public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+									public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 										JSONObject object;
 										try {
 											object = request.objectInput();
@@ -464,7 +675,7 @@ public class APIImpl implements API {
 						final ObjectApiTypeImpl objectType = marshaller.getObjectType(patchType.getType());
 						return new ArgHandler() {
 							@Override
-							public Object get(ApiRequest request, Object getResponse, Params params) throws IOException, ApiException {
+							public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
 								JSONObject object;
 								try {
 									object = request.objectInput();
@@ -490,36 +701,104 @@ public class APIImpl implements API {
 			return argHandler;
 		}
 
-		Resource invoke(ApiRequest request, Object getResult) throws IOException, ApiException {
-			return resourceFactory.createResourceFrom(invokeRaw(request, getResult), endpoint.getResponse());
+		/**
+		 * The body argument is Iterator&lt;T> or Iterable&lt;T>: the array elements are parsed and
+		 * unmarshalled one by one while the service method iterates over them.
+		 */
+		private ArgHandler checkElementStream(final ContentType contentType, final ApiType elementType, Type type, final boolean iterable) throws ConfigurationException {
+			final Type elementJavaType = type instanceof ParameterizedType ? ((ParameterizedType) type).getActualTypeArguments()[0] : Object.class;
+			if (!elementType.check(elementJavaType)) {
+				throw new ConfigurationException("Body argument of " + this.method + " is expected to be an Iterator or Iterable of "+elementType.getJavaName());
+			}
+			return new ArgHandler() {
+				@Override
+				public Object get(ApiRequest request, Object getResponse, ParamsImpl params) throws IOException, ApiException {
+					ApiRequest.ArrayElements elements;
+					try {
+						elements = request.arrayElements();
+					} catch (ApiException ex) {
+						if (contentType.getJson().isOptional()) {
+							return null;
+						} else {
+							throw ex;
+						}
+					}
+					ArrayBodyIterator iterator = new ArrayBodyIterator(marshaller, elementType, elementJavaType, elements);
+					return iterable ? iterator.asIterable() : iterator;
+				}
+			};
+		}
+
+		Resource invoke(ApiRequest request, RouteMatch<EndpointMapping> route, Object getResult, RequestMetrics metrics) throws IOException, ApiException {
+			Resource resource = resourceFactory.createResourceFrom(invokeRaw(request, route, getResult, metrics), endpoint.getResponse(), responseType);
+			if (metrics != null) metrics.lap(RequestMetrics.Phase.MARSHALLING);
+			return resource;
+		}
+
+		/**
+		 * Invokes the service when the parameters are already parsed and the permissions are checked.
+		 *
+		 * @param etag The ETag of the response if it is known in advance.
+		 */
+		Resource invoke(ApiRequest request, ParamsImpl params, String etag, RequestMetrics metrics) throws IOException, ApiException {
+			Resource resource = resourceFactory.createResourceFrom(call(request, params, null, metrics), endpoint.getResponse(), responseType, etag);
+			if (metrics != null) metrics.lap(RequestMetrics.Phase.MARSHALLING);
+			return resource;
+		}
+
+		/**
+		 * @param metrics Receives the phase times; null when metrics are disabled.
+		 */
+		Object invokeRaw(ApiRequest request, RouteMatch<EndpointMapping> route, Object getResult, RequestMetrics metrics) throws IOException, ApiException {
+			ParamsImpl params = parseParams(request, route, metrics);
+			checkPermission(request, metrics);
+			return call(request, params, getResult, metrics);
 		}
 
-		Object invokeRaw(ApiRequest request, Object getResult) throws IOException, ApiException {
-			Map<String, String> pathParams = match(getPath(request));
-			ParamsImpl params = new ParamsImpl();
-			for (Parameter param: endpoint.getParameters().getParameter()) {
-				String paramStringValue = pathParams.get(param.getName());
+		/**
+		 * Invokes the service when the parameters are already parsed and the permissions are checked.
+		 */
+		Object invokeRaw(ApiRequest request, ParamsImpl params, Object getResult, RequestMetrics metrics) throws IOException, ApiException {
+			return call(request, params, getResult, metrics);
+		}
+
+		ParamsImpl parseParams(ApiRequest request, RouteMatch<EndpointMapping> route, RequestMetrics metrics) throws ApiException {
+			Map<String, String> pathParams = route.params;
+			ParamParser[] parsers = paramParsers;
+			ParamsImpl params = new ParamsImpl(paramSlots, parsers.length);
+			for (int i = 0; i < parsers.length; i++) {
+				ParamParser parser = parsers[i];
+				String paramStringValue = pathParams.get(parser.name);
 				if (paramStringValue == null) {
-					paramStringValue = request.param(param.getName());
+					paramStringValue = request.param(parser.name);
 				}
-				if (!StringUtils.isEmpty(paramStringValue) && param.isHttpsonly() && !request.https()) {
-					throw new ApiException("Bad request. Parameter "+param.getName()+" can only be sent over HTTPS.");
+				if (!StringUtils.isEmpty(paramStringValue) && parser.httpsonly && !request.https()) {
+					throw new ApiException("Bad request. Parameter "+parser.name+" can only be sent over HTTPS.");
 				}
-				params.put(param.getName(), parseParam(param, paramStringValue));
+				params.set(i, parser.parse(paramStringValue));
 			}
+			if (metrics != null) metrics.lap(RequestMetrics.Phase.PARAMETERS);
+			return params;
+		}
+
+		private Object call(ApiRequest request, ParamsImpl params, Object getResult, RequestMetrics metrics) throws IOException, ApiException {
 			Object result;
 			try {
 				Object[] argValues = new Object[args.length];
-				if (permissionChecker != null) { 
-					permissionChecker.check(this.endpoint, request);
-				}
 				for (int i=0; i<args.length; i++) {
 					argValues[i] = args[i].get(request, getResult, params);
 				}
+				if (metrics != null) metrics.lap(RequestMetrics.Phase.BODY);
 				result = method.invoke(service, argValues);
+				if (metrics != null) metrics.lap(RequestMetrics.Phase.SERVICE);
 				return result;
 			} catch (InvocationTargetException ite) {
 				Throwable cause = ite.getCause();
+				if (cause instanceof ArrayBodyIterator.Failure) {
+					// failed to read an element of the request body
+					cause = cause.getCause();
+					if (cause instanceof IOException) throw (IOException) cause;
+				}
 				if (cause instanceof ApiException) {
 					throw (ApiException)cause;
 				}
@@ -539,6 +818,73 @@ public class APIImpl implements API {
 
 		}
 
+		void checkPermission(ApiRequest request, RequestMetrics metrics) throws ApiException {
+			if (permissionChecker != null) {
+				permissionChecker.check(this.endpoint, request);
+				if (metrics != null) metrics.lap(RequestMetrics.Phase.PERMISSIONS);
+			}
+		}
+
+		/**
+		 * The cache key of a GET request: the path, the raw querystring parameters, the vary headers
+		 * and the prettify flag. Null if the response should not be cached, i.e. for JSONP requests
+		 * or when a HTTPS-only parameter came over HTTP (the request is going to fail anyway).
+		 */
+		ResponseCache.Key cacheKey(ApiRequest request, RouteMatch<EndpointMapping> route, String path) {
+			if (params.getJsonpParamName() != null && request.param(params.getJsonpParamName()) != null) return null;
+			StringBuilder variant = new StringBuilder();
+			variant.append(ApiResponseImpl.isPrettify(params, request) ? 'p' : 'c');
+			for (ParamParser parser: paramParsers) {
+				if (route.params.containsKey(parser.name)) continue; // already in the path
+				String value = request.param(parser.name);
+				if (!StringUtils.isEmpty(value) && parser.httpsonly && !request.https()) return null;
+				appendKeyPart(variant, value);
+			}
+			for (String header: varyHeaders) {
+				appendKeyPart(variant, request.header(header));
+			}
+			return new ResponseCache.Key(path, variant.toString());
+		}
+
+		private void appendKeyPart(StringBuilder variant, String value) {
+			if (value == null) {
+				variant.append('\u0000');
+			} else {
+				variant.append('\u0001').append(value);
+			}
+		}
+
+		/**
+		 * Whether {@link #getCurrentETag} can know the ETag without invoking the service.
+		 */
+		boolean hasCurrentETag() {
+			return versionResolver != null || cache != null;
+		}
+
+		/**
+		 * The ETag a GET from this endpoint would be sent with, if it is known without invoking the
+		 * service: the version from the resolver, or the ETag of the cached response. Null otherwise.
+		 *
+		 * @param params The parsed parameters of the GET; the caller checks the permissions.
+		 */
+		String getCurrentETag(ApiRequest request, RouteMatch<EndpointMapping> route, String path, ParamsImpl params) throws ApiException {
+			if (versionResolver != null) {
+				String version = getVersion(params);
+				if (version != null) return version;
+			}
+			ResponseCache.Key key = cache == null ? null : cacheKey(request, route, path);
+			ResponseCache.Entry cached = key == null ? null : cache.get(key);
+			return cached == null ? null : cached.getETag();
+		}
+
+		/**
+		 * The version from the resolver in the ETag form, or null.
+		 */
+		String getVersion(ParamsImpl params) throws ApiException {
+			String version = versionResolver.getVersion(params);
+			return version == null ? null : "W/\"" + version + "\"";
+		}
+
 		// find exception by its type
 		private Error findError(Throwable cause) {
 			for (Error err: endpoint.getErrors().getError()) {
@@ -551,10 +897,6 @@ public class APIImpl implements API {
 			return null;
 		}
 
-		private Map<String,String> match(String path) {
-			return pathMatcher.match(path);
-		}
-
 		public boolean matches(String path) {
 			return pathMatcher.matches(path);
 		}
@@ -569,6 +911,24 @@ public class APIImpl implements API {
 
 	}
 
+	private void checkIfMatch(ApiRequest request, String etag) throws ApiException {
+		if (!parseList(request.header("If-Match")).contains(etag)) {
+			throw new ApiException("Precondition failed").setHttpStatus(412);
+		}
+	}
+
+	/**
+	 * The ETag a GET response with the resource is sent with. Streaming JSON resources
+	 * compute it without building the JSON tree. An array streamed from an Iterator has no
+	 * ETag, so an If-Match precondition on its route always fails.
+	 */
+	private String getETag(Resource resource) throws IOException {
+		if (params.getEtagMode() == ETagMode.DIGEST && ETagDigest.isApplicable(resource)) {
+			return ETagDigest.of(resource);
+		}
+		return resource.getETag();
+	}
+
 	private List<String> parseList(String header) {
 		ArrayList<String> parsed = new ArrayList<String>();
 		for (String part: header.split(",")) {
@@ -577,36 +937,20 @@ public class APIImpl implements API {
 		return parsed;
 	}
 
-	private DelegatingApiRequest changeMethod(final ApiRequest request, final String newMethod) {
-		return new DelegatingApiRequest(request) {
-			@Override
-			public String method() {
-				return newMethod;
-			}
-		};
-	}
-
 	public <T extends Annotation> T getMethodAnnotation(ApiRequest request, Class<T> annotationClass) throws IOException, ApiException {
 		EndpointMapping endpoint = findEndpoint(request);
 		return endpoint.method.getAnnotation(annotationClass);
 	}
 
 	EndpointMapping findEndpoint(ApiRequest request) throws IOException, ApiException {
-		boolean pathFound = false;
-		for (EndpointMapping endpoint: endpoints) {
-			Map<String, String> pathParams = endpoint.match(getPath(request));
-			if (pathParams == null) continue;
-			pathFound = true;
-
-			if (!request.method().equals(endpoint.httpMethod)) {
-				continue;
-			}
-
-			return endpoint;
+		return findRoute(router.match(getPath(request)), request.method()).target;
+	}
 
-		}
-		if (pathFound) {
-			String allowMethods = getAllowedMethodsString(request);
+	private RouteMatch<EndpointMapping> findRoute(Router.Match<EndpointMapping> match, String method) throws ApiException {
+		RouteMatch<EndpointMapping> route = match.find(method);
+		if (route != null) return route;
+		if (!match.isEmpty()) {
+			String allowMethods = getAllowedMethodsString(match);
 			throw new ApiException("Method not allowed").setHttpStatus(405).addHeader("Allow", allowMethods);
 		}
 		throw new ApiException("File not found").setHttpStatus(404);
@@ -616,21 +960,15 @@ public class APIImpl implements API {
 		return request.path().substring(pathPrefix.length());
 	}
 
-	private String getAllowedMethodsString(ApiRequest request) throws IOException, ApiException {
-		List<String> methods = getAllowedMethods(request);
+	private String getAllowedMethodsString(Router.Match<EndpointMapping> match) {
+		List<String> methods = match.getAllowedMethods();
 		methods.add("OPTIONS");
 		return StringUtils.join(methods, ", ");
 	}
 
 	@Override
 	public List<String> getAllowedMethods(ApiRequest request) throws IOException, ApiException {
-		List<String> methods = new ArrayList<String>();
-		for (EndpointMapping endpoint: endpoints) {
-			if (endpoint.matches(getPath(request))) {
-				methods.add(endpoint.httpMethod);
-			}
-		}
-		return methods;
+		return router.match(getPath(request)).getAllowedMethods();
 	}
 
 	@Override
@@ -642,66 +980,6 @@ public class APIImpl implements API {
 		return pathPrefix;
 	}
 
-	static private final Pattern ISDOUBLE = Pattern.compile("[\\.eE]");
-
-	Object parseParam(Parameter param, String valueStr) throws ApiException {
-		if (valueStr == null) {
-			if (!param.isOptional()) {
-				throw new ApiException("Absent parameter "+param.getName());
-			}
-			valueStr = param.getDefault();
-		}
-
-		if (valueStr == null) return null;
-		switch (param.getType()) {
-		case BOOLEAN:
-			if (valueStr.equals("true") || valueStr.equals("yes") || valueStr.equals("on") || valueStr.equals("1")) {
-				return Boolean.TRUE;
-			}
-			if (valueStr.equals("false") || valueStr.equals("no") || valueStr.equals("off") || valueStr.equals("0")) {
-				return Boolean.FALSE;
-			}
-			throw new ApiException("Wrong parameter '"+param.getName()+"' value: expected one of 'true', 'false', 'yes', 'no', 'on', 'off', '1', '0'");
-		case NUMBER:
-			valueStr = valueStr.trim();
-			try {
-				if (ISDOUBLE.matcher(valueStr).find()) {
-					return Double.parseDouble(valueStr);
-				} else {
-					return Long.parseLong(valueStr);
-				}
-			} catch (NumberFormatException ex) {
-				throw new ApiException("Wrong numeric parameter '"+param.getName()+"' value: not a number or a number out of range");
-			}
-		case STRING:
-			if (param.getValues() != null) {
-				// check allowed values
-				if (!contains(param.getValues().getValue(), valueStr)) {
-					throw new ApiException("Wrong parameter '"+param.getName()+"' value: expected one of "+
-							join(param.getValues().getValue(), ", "));
-				}
-			}
-			return valueStr;
-		}
-		throw new AssertionError();
-	}
-
-	private String join(List<Value> value, String s) {
-		StringBuilder result = new StringBuilder();
-		for (Value v: value) {
-			if (result.length() > 0) result.append(", ");
-			result.append(v.getContent());
-		}
-		return result.toString();
-	}
-
-	private boolean contains(List<Value> value, String valueStr) {
-		for (Value v: value) {
-			if (v.getContent().equals(valueStr)) return true;
-		}
-		return false;
-	}
-
 	boolean matchParam(String argName, String paramName) {
 		return argName.equals(paramName.replace('-', '_').replace(' ', '_'));
 	}
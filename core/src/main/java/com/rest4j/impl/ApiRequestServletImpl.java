@@ -22,13 +22,18 @@ import com.rest4j.ApiRequest;
 import com.rest4j.json.JSONArray;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
-import org.apache.commons.io.IOUtils;
+import com.rest4j.json.JSONTokener;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Collections;
+import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
 
 /**
@@ -38,11 +43,24 @@ public class ApiRequestServletImpl extends ApiRequest {
 	private final HttpServletRequest request;
 	JSONObject objectInput;
 	JSONArray arrayInput;
+	long maxBodySize = -1;
 
 	public ApiRequestServletImpl(HttpServletRequest request) {
 		this.request = request;
 	}
 
+	/**
+	 * Limits the size of JSON request bodies. Longer bodies are rejected with
+	 * HTTP status 413. Negative value means no limit, which is the default.
+	 */
+	public void setMaxBodySize(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	public long getMaxBodySize() {
+		return maxBodySize;
+	}
+
 	@Override
 	public String method() {
 		return request.getMethod();
@@ -72,11 +90,11 @@ public class ApiRequestServletImpl extends ApiRequest {
 	public JSONObject objectInput() throws IOException, ApiException {
 		if (objectInput != null) return objectInput;
 		checkJSON();
-		String json = getString();
+		JSONTokener tokener = openTokener();
 		try {
-			return objectInput = new JSONObject(json);
+			return objectInput = new JSONObject(tokener);
 		} catch (JSONException e) {
-			throw new ApiException("Wrong JSON format: "+e.getMessage());
+			throw wrongFormat(e);
 		}
 	}
 
@@ -84,20 +102,119 @@ public class ApiRequestServletImpl extends ApiRequest {
 	public JSONArray arrayInput() throws IOException, ApiException {
 		if (arrayInput != null) return arrayInput;
 		checkJSON();
-		String json = getString();
+		JSONTokener tokener = openTokener();
+		try {
+			return arrayInput = new JSONArray(tokener);
+		} catch (JSONException e) {
+			throw wrongFormat(e);
+		}
+	}
+
+	/**
+	 * Parses the array elements lazily from the request stream, the same way
+	 * JSONArray(JSONTokener) does.
+	 */
+	@Override
+	public ArrayElements arrayElements() throws IOException, ApiException {
+		if (arrayInput != null) return super.arrayElements();
+		checkJSON();
+		final JSONTokener tokener = openTokener();
 		try {
-			return arrayInput = new JSONArray(json);
+			if (tokener.nextClean() != '[') {
+				throw tokener.syntaxError("A JSONArray text must start with '['");
+			}
 		} catch (JSONException e) {
-			throw new ApiException("Wrong JSON format: "+e.getMessage());
+			throw wrongFormat(e);
 		}
+		return new ArrayElements() {
+			boolean first = true;
+			Boolean more;
+
+			@Override
+			public boolean hasNext() throws IOException, ApiException {
+				if (more == null) {
+					try {
+						more = advance();
+					} catch (JSONException e) {
+						throw wrongFormat(e);
+					}
+				}
+				return more;
+			}
+
+			private boolean advance() {
+				char c = tokener.nextClean();
+				if (first) {
+					first = false;
+					if (c == ']') return false;
+					tokener.back();
+					return true;
+				}
+				switch (c) {
+					case ',':
+						if (tokener.nextClean() == ']') return false;
+						tokener.back();
+						return true;
+					case ']':
+						return false;
+					default:
+						throw tokener.syntaxError("Expected a ',' or ']'");
+				}
+			}
+
+			@Override
+			public Object next() throws IOException, ApiException {
+				if (!hasNext()) throw new NoSuchElementException();
+				more = null;
+				try {
+					if (tokener.nextClean() == ',') {
+						tokener.back();
+						return JSONObject.NULL;
+					}
+					tokener.back();
+					return tokener.nextValue();
+				} catch (JSONException e) {
+					throw wrongFormat(e);
+				}
+			}
+		};
 	}
 
-	private String getString() throws IOException {
-		String json = IOUtils.toString(request.getReader());
-		if (json.startsWith("\ufeff")) { // UTF-8 prefix
-			json = json.substring(1);
+	private JSONTokener openTokener() throws IOException, ApiException {
+		if (maxBodySize >= 0 && request.getContentLength() > maxBodySize) {
+			throw bodyTooLarge(new JSONInputReader.BodyTooLargeException(maxBodySize));
 		}
-		return json;
+		return new JSONTokener(new JSONInputReader(request.getInputStream(), getCharset(), maxBodySize));
+	}
+
+	private Charset getCharset() throws UnsupportedEncodingException {
+		String encoding = request.getCharacterEncoding();
+		if (encoding == null) return JSONInputReader.UTF8;
+		try {
+			return Charset.forName(encoding);
+		} catch (IllegalCharsetNameException e) {
+			throw new UnsupportedEncodingException(encoding);
+		} catch (UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+	}
+
+	/**
+	 * The tokener wraps I/O errors into JSONException; those are not format errors
+	 * and are unwrapped here.
+	 */
+	private ApiException wrongFormat(JSONException e) throws IOException {
+		if (e.getCause() instanceof JSONInputReader.BodyTooLargeException) {
+			return bodyTooLarge((IOException) e.getCause());
+		}
+		if (e.getCause() instanceof IOException) {
+			throw (IOException) e.getCause();
+		}
+		return new ApiException("Wrong JSON format: "+e.getMessage());
+	}
+
+	private static ApiException bodyTooLarge(IOException e) {
+		return new ApiException(e.getMessage()).setHttpStatus(413);
 	}
 
 	@Override
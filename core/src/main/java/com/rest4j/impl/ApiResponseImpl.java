@@ -18,12 +18,17 @@
 package com.rest4j.impl;
 
 import com.rest4j.*;
+import com.rest4j.impl.model.APIParams;
+import com.rest4j.impl.model.ETagMode;
+import com.rest4j.impl.model.ResponseMode;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang.StringUtils;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -36,24 +41,20 @@ public class ApiResponseImpl implements ApiResponse {
 	String statusMessage;
 	Headers headers = new Headers();
 	Resource response;
+	String etag; // sent instead of the resource ETag when set
 	boolean compress;
 	boolean addEtag;
+	boolean digestETag;
+	ResponseMode responseMode;
+	int compressionThreshold;
+	int compressionLevel;
+	final MetricsSink metricsSink;
+	RequestMetrics metrics; // null unless this response is measured
+	private CountingOutputStream bytesOut;
+	private ByteArrayOutputStream body; // the uncompressed body, once buffered
 
 	public ApiResponseImpl(APIImpl api, ApiRequest request, Resource response) {
-		this.prettify = api.getParams().isPrettifyByDefault() == null ? false : api.getParams().isPrettifyByDefault();
-		String param = api.getParams().getPrettifyParam();
-		if (param != null) {
-			int pos = param.indexOf('=');
-			if (pos == -1 && request.param(param) != null) {
-				prettify = !prettify;
-			} else {
-				String prettifyParamName = param.substring(0, pos);
-				String val = request.param(prettifyParamName);
-				if (val != null && val.matches(param.substring(pos+1))) {
-					prettify = !prettify;
-				}
-			}
-		}
+		this.prettify = isPrettify(api.getParams(), request);
 		this.response = response;
 		if (api.getParams().getJsonpParamName() != null) {
 			this.callbackFunctionName = request.param(api.getParams().getJsonpParamName());
@@ -63,7 +64,31 @@ public class ApiResponseImpl implements ApiResponse {
 				headers.addHeader(header.getName(), header.getValue());
 		}
 		compress = StringUtils.containsIgnoreCase(request.header("Accept-Encoding"), "gzip");
+		APIParams params = api.getParams();
+		responseMode = params.getResponseMode() == null ? ResponseMode.BUFFERED : params.getResponseMode();
+		compressionThreshold = params.getCompressionThreshold() == null ? 0 : params.getCompressionThreshold();
+		compressionLevel = params.getCompressionLevel() == null ? Deflater.DEFAULT_COMPRESSION : params.getCompressionLevel();
 		addEtag = request.method().equals("GET");
+		digestETag = params.getEtagMode() == ETagMode.DIGEST;
+		metricsSink = api.metricsSink;
+	}
+
+	static boolean isPrettify(APIParams params, ApiRequest request) {
+		boolean prettify = params.isPrettifyByDefault() == null ? false : params.isPrettifyByDefault();
+		String param = params.getPrettifyParam();
+		if (param != null) {
+			int pos = param.indexOf('=');
+			if (pos == -1) {
+				if (request.param(param) != null) prettify = !prettify;
+			} else {
+				String prettifyParamName = param.substring(0, pos);
+				String val = request.param(prettifyParamName);
+				if (val != null && val.matches(param.substring(pos+1))) {
+					prettify = !prettify;
+				}
+			}
+		}
+		return prettify;
 	}
 
 	@Override
@@ -93,46 +118,148 @@ public class ApiResponseImpl implements ApiResponse {
 		return response;
 	}
 
+	/**
+	 * The ETag sent with the response. A buffered body is serialized here, so that a
+	 * StreamingJSONResource hashes it on the way and, in the 'digest' ETag mode, the body is
+	 * digested on the way; either way the ETag is known before the headers are sent.
+	 * A streamed body is digested in a separate pass.
+	 */
+	String getETag() throws IOException {
+		if (etag != null || this.response == null) return etag;
+		if (!digestETag || !ETagDigest.isApplicable(this.response)) {
+			if (isBuffered()) bufferBody();
+			etag = this.response.getETag();
+		} else {
+			if (isBuffered()) bufferBody();
+			if (etag == null) etag = ETagDigest.of(this.response);
+		}
+		return etag;
+	}
+
 	@Override
 	public void outputBody(HttpServletResponse response) throws IOException {
+		if (metrics == null || metricsSink == null) {
+			outputBodyInt(response);
+			return;
+		}
+		metrics.startLap();
+		try {
+			outputBodyInt(response);
+		} finally {
+			metrics.lap(RequestMetrics.Phase.OUTPUT);
+			metrics.finish();
+			metrics.status = status;
+			if (bytesOut != null) metrics.bytesOut = bytesOut.getByteCount();
+			RequestMetrics recorded = metrics;
+			metrics = null; // record once even if the body is output again
+			metricsSink.record(recorded);
+		}
+	}
+
+	private void outputBodyInt(final HttpServletResponse response) throws IOException {
 		if (statusMessage == null) response.setStatus(status);
 		else response.setStatus(status, statusMessage);
 		headers.outputHeaders(response);
 		if (this.response == null) return;
 		response.addHeader("Content-type", this.response.getContentType());
 		if (addEtag) {
-			String etag = this.response.getETag();
+			String etag = getETag();
 			if (etag != null) response.addHeader("ETag", etag);
 		}
 
-		OutputStream outputStream;
-		byte[] resourceBytes = ((JSONResource) this.response).getJSONObject().toString().getBytes();
-		int contentLength = resourceBytes.length;
-		if (compress) {
-			response.addHeader("Content-encoding", "gzip");
-			ByteArrayOutputStream outputByteStream = new ByteArrayOutputStream();
-			GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputByteStream);
-			gzipOutputStream.write(resourceBytes);
-			gzipOutputStream.finish(); // финиш нужен чтобы результат закрепился!
-			contentLength = outputByteStream.toByteArray().length;
-			gzipOutputStream.close();
-			outputByteStream.close();
-
-			outputStream = new GZIPOutputStream(response.getOutputStream());
+		if (this.response instanceof JSONResource) {
+			((JSONResource)this.response).setPrettify(prettify);
+		}
+
+		if (this.response instanceof ResponseCache.Entry && callbackFunctionName == null) {
+			// already serialized and compressed when it was cached
+			ResponseCache.Entry cached = (ResponseCache.Entry) this.response;
+			byte[] body = cached.body;
+			if (compress && cached.gzipped != null) {
+				response.addHeader("Content-encoding", "gzip");
+				body = cached.gzipped;
+			}
+			response.addHeader("Content-Length", String.valueOf(body.length));
+			OutputStream outputStream = openOutput(response);
+			outputStream.write(body);
+			outputStream.close();
+		} else if (isStreamed()) {
+			OutputStream outputStream = compress
+					? new CompressingOutputStream(response, compressionThreshold, compressionLevel) {
+						@Override
+						OutputStream openResponse() throws IOException {
+							return openOutput(response);
+						}
+					}
+					: openOutput(response);
+			writeResource(outputStream);
+			outputStream.close();
 		} else {
-			outputStream = response.getOutputStream();
+			// encode the body once; compress it once if needed; send with the exact length
+			bufferBody();
+			ByteArrayOutputStream body = this.body;
+			if (compress && body.size() >= compressionThreshold) {
+				response.addHeader("Content-encoding", "gzip");
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+				GZIPOutputStream gzipOutputStream = CompressingOutputStream.gzip(compressed, compressionLevel);
+				body.writeTo(gzipOutputStream);
+				gzipOutputStream.close();
+				body = compressed;
+			}
+			response.addHeader("Content-Length", String.valueOf(body.size()));
+			OutputStream outputStream = openOutput(response);
+			body.writeTo(outputStream);
+			outputStream.close();
 		}
-		response.addHeader("Content-Length", String.valueOf(contentLength));
+	}
+
+	private boolean isBuffered() {
+		return this.response != null && !isStreamed()
+				&& !(this.response instanceof ResponseCache.Entry && callbackFunctionName == null);
+	}
 
+	/**
+	 * Whether the body is written while it is being produced, without Content-Length. Besides
+	 * the 'chunked' response mode, this is how iterated arrays and binary streams of unknown
+	 * length are always sent: buffering them would hold the whole body in memory.
+	 */
+	private boolean isStreamed() {
+		return responseMode == ResponseMode.CHUNKED
+				|| this.response instanceof StreamingArrayResource
+				|| this.response instanceof BinaryResource && ((BinaryResource) this.response).getContentLength() < 0;
+	}
+
+	private void bufferBody() throws IOException {
+		if (body != null) return;
 		if (this.response instanceof JSONResource) {
 			((JSONResource)this.response).setPrettify(prettify);
 		}
+		body = new ByteArrayOutputStream();
+		if (etag == null && digestETag && ETagDigest.isApplicable(this.response) && !prettify && callbackFunctionName == null) {
+			// the digest is of the compact body, which is exactly what is sent
+			ETagDigest digest = new ETagDigest(body);
+			writeResource(digest);
+			etag = digest.getETag();
+		} else {
+			writeResource(body);
+		}
+	}
+
+	/**
+	 * The servlet output stream, counting the bytes sent when metrics are collected.
+	 */
+	private OutputStream openOutput(HttpServletResponse response) throws IOException {
+		OutputStream outputStream = response.getOutputStream();
+		if (metrics == null) return outputStream;
+		return bytesOut = new CountingOutputStream(outputStream);
+	}
+
+	private void writeResource(OutputStream outputStream) throws IOException {
 		if (callbackFunctionName == null) {
 			this.response.write(outputStream);
 		} else {
 			this.response.writeJSONP(outputStream, callbackFunctionName);
 		}
-		outputStream.close();
 	}
 
 }
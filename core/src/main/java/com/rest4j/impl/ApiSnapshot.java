@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.impl.model.API;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads the API model in a binary form, so that {@link com.rest4j.ApiFactory} can skip
+ * the XML parsing, schema validation and preprocessing at startup. The snapshot is written at build time
+ * from a validated and preprocessed model and should be rebuilt when rest4j is upgraded.
+ *
+ * <p>The model classes are generated by JAXB and are not Serializable, so each of them is written as
+ * its field values, using the Java serialization for everything else. The DOM elements
+ * found in descriptions and &lt;extra> tags are written as XML text.</p>
+ *
+ * <p>Only the classes a model can contain are read: the model classes, the classes of the
+ * ext ObjectFactory package and a few JDK value types. Any other class in the stream is rejected,
+ * so a tampered snapshot cannot instantiate arbitrary Serializable classes.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class ApiSnapshot {
+	private static final String MAGIC = "rest4j-api-snapshot";
+	private static final int VERSION = 1;
+
+	/**
+	 * @param api The model, as returned by {@link com.rest4j.ApiFactory#readModel()}.
+	 */
+	public static void write(API api, OutputStream out) throws IOException {
+		SnapshotOutput output = new SnapshotOutput(new BufferedOutputStream(out));
+		output.writeUTF(MAGIC);
+		output.writeInt(VERSION);
+		output.writeObject(api);
+		output.flush();
+	}
+
+	// JDK classes the model (including the JAXB &lt;extra> content and the otherAttributes maps) is made of
+	private static final List<String> JDK_CLASSES = Arrays.asList(
+			"java.lang.Object", "java.lang.String", "java.lang.Boolean", "java.lang.Integer", "java.lang.Long",
+			"java.lang.Short", "java.lang.Byte", "java.lang.Double", "java.lang.Float", "java.lang.Number", "java.lang.Enum",
+			"java.math.BigInteger", "java.math.BigDecimal", "java.util.ArrayList", "java.util.HashMap",
+			"javax.xml.bind.JAXBElement", "javax.xml.bind.JAXBElement$GlobalScope", "javax.xml.namespace.QName");
+
+	/**
+	 * Reads a snapshot of an API without ext schema.
+	 *
+	 * @throws InvalidObjectException If the stream is not an API snapshot.
+	 * @throws InvalidClassException If the snapshot does not match the model classes of this rest4j version,
+	 * or contains a class that cannot be a part of the model.
+	 */
+	public static API read(InputStream in) throws IOException {
+		return read(in, null);
+	}
+
+	/**
+	 * @param extObjectFactory The JAXB ObjectFactory of the ext schema, see {@link com.rest4j.ApiFactory#setExtSchema};
+	 *                         the classes of its package may be found in the &lt;extra> tags.
+	 * @throws InvalidObjectException If the stream is not an API snapshot.
+	 * @throws InvalidClassException If the snapshot does not match the model classes of this rest4j version,
+	 * or contains a class that cannot be a part of the model.
+	 */
+	public static API read(InputStream in, Class extObjectFactory) throws IOException {
+		SnapshotInput input = new SnapshotInput(new BufferedInputStream(in), extObjectFactory);
+		if (!MAGIC.equals(input.readUTF()) || input.readInt() != VERSION) {
+			throw new InvalidObjectException("Not an API snapshot");
+		}
+		try {
+			return (API) input.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new InvalidClassException(e.getMessage());
+		}
+	}
+
+	/**
+	 * The serialized form of a non-Serializable object: the names and the values of its fields.
+	 * The names array is shared by all the objects of a class, so it is written once.
+	 */
+	static class ObjectFields implements Serializable {
+		final Class clz;
+		final String[] names;
+		final Object[] values;
+
+		ObjectFields(Class clz, String[] names, Object[] values) {
+			this.clz = clz;
+			this.names = names;
+			this.values = values;
+		}
+	}
+
+	static class XmlElement implements Serializable {
+		final String xml;
+
+		XmlElement(String xml) {
+			this.xml = xml;
+		}
+	}
+
+	/**
+	 * The instance fields of a class and its superclasses.
+	 */
+	static class ClassFields {
+		final Field[] fields;
+		final String[] names;
+
+		ClassFields(Class clz) {
+			List<Field> list = new ArrayList<Field>();
+			for (Class c = clz; c != Object.class; c = c.getSuperclass()) {
+				for (Field field: c.getDeclaredFields()) {
+					if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0) continue;
+					field.setAccessible(true);
+					list.add(field);
+				}
+			}
+			fields = list.toArray(new Field[list.size()]);
+			names = new String[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				names[i] = fields[i].getName();
+			}
+		}
+
+		Field find(String name) {
+			for (Field field: fields) {
+				if (field.getName().equals(name)) return field;
+			}
+			return null;
+		}
+	}
+
+	static class SnapshotOutput extends ObjectOutputStream {
+		private final Map<Class, ClassFields> classes = new HashMap<Class, ClassFields>();
+		private Transformer transformer;
+
+		SnapshotOutput(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof Element) {
+				return new XmlElement(toXml((Element) obj));
+			}
+			if (obj == null || obj instanceof Serializable) return obj;
+			ClassFields fields = classes.get(obj.getClass());
+			if (fields == null) {
+				fields = new ClassFields(obj.getClass());
+				classes.put(obj.getClass(), fields);
+			}
+			Object[] values = new Object[fields.fields.length];
+			try {
+				for (int i = 0; i < values.length; i++) {
+					values[i] = fields.fields[i].get(obj);
+				}
+			} catch (IllegalAccessException e) {
+				throw new AssertionError(e);
+			}
+			return new ObjectFields(obj.getClass(), fields.names, values);
+		}
+
+		private String toXml(Element element) throws IOException {
+			try {
+				if (transformer == null) {
+					transformer = TransformerFactory.newInstance().newTransformer();
+					transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+				}
+				StringWriter xml = new StringWriter();
+				transformer.transform(new DOMSource(element), new StreamResult(xml));
+				return xml.toString();
+			} catch (Exception e) {
+				throw (IOException) new NotSerializableException("Cannot write element " + element.getTagName()).initCause(e);
+			}
+		}
+	}
+
+	static class SnapshotInput extends ObjectInputStream {
+		private final Map<Class, ClassFields> classes = new HashMap<Class, ClassFields>();
+		private final String extPackage; // with the trailing dot; null if there is no ext schema
+		private DocumentBuilder documentBuilder;
+
+		SnapshotInput(InputStream in, Class extObjectFactory) throws IOException {
+			super(in);
+			enableResolveObject(true);
+			String name = extObjectFactory == null ? null : extObjectFactory.getName();
+			extPackage = name == null ? null : name.substring(0, name.lastIndexOf('.') + 1);
+		}
+
+		boolean isAllowed(String name) {
+			// arrays of the allowed classes or of primitives
+			int dims = 0;
+			while (name.startsWith("[", dims)) dims++;
+			if (dims > 0) {
+				if (name.length() == dims + 1) return true;
+				if (!name.startsWith("L", dims) || !name.endsWith(";")) return false;
+				name = name.substring(dims + 1, name.length() - 1);
+			}
+			return name.startsWith(ApiSnapshot.class.getName() + "$")
+					|| name.startsWith(API.class.getPackage().getName() + ".")
+					|| extPackage != null && name.startsWith(extPackage)
+					|| JDK_CLASSES.contains(name);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (!isAllowed(desc.getName())) {
+				throw new InvalidClassException(desc.getName(), "not allowed in an API snapshot");
+			}
+			// the classes from the ext schema may come from the application class loader
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			if (loader != null) {
+				try {
+					return Class.forName(desc.getName(), false, loader);
+				} catch (ClassNotFoundException e) {
+					// fall back to the default
+				}
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof XmlElement) {
+				return fromXml(((XmlElement) obj).xml);
+			}
+			if (!(obj instanceof ObjectFields)) return obj;
+			ObjectFields objectFields = (ObjectFields) obj;
+			ClassFields fields = classes.get(objectFields.clz);
+			if (fields == null) {
+				fields = new ClassFields(objectFields.clz);
+				classes.put(objectFields.clz, fields);
+			}
+			try {
+				Constructor constructor = objectFields.clz.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				Object inst = constructor.newInstance();
+				for (int i = 0; i < objectFields.names.length; i++) {
+					Field field = fields.find(objectFields.names[i]);
+					if (field == null) {
+						throw new InvalidClassException(objectFields.clz.getName(), "no field " + objectFields.names[i]);
+					}
+					field.set(inst, objectFields.values[i]);
+				}
+				return inst;
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw (IOException) new InvalidClassException(objectFields.clz.getName(), e.toString()).initCause(e);
+			}
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("Proxy classes are not allowed in an API snapshot");
+		}
+
+		private Element fromXml(String xml) throws IOException {
+			try {
+				if (documentBuilder == null) {
+					DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+					factory.setNamespaceAware(true);
+					documentBuilder = factory.newDocumentBuilder();
+				}
+				return documentBuilder.parse(new InputSource(new StringReader(xml))).getDocumentElement();
+			} catch (Exception e) {
+				throw (IOException) new StreamCorruptedException("Cannot read element " + xml).initCause(e);
+			}
+		}
+	}
+}
@@ -21,6 +21,8 @@ import com.rest4j.ApiException;
 import com.rest4j.Marshaller;
 import com.rest4j.type.ApiType;
 
+import java.io.IOException;
+
 /**
 * @author Joseph Kapizza <joseph@rest4j.com>
 */
@@ -36,6 +38,20 @@ public abstract class ApiTypeImpl implements ApiType {
 
 	abstract Object marshal(Object val) throws ApiException;
 
+	/**
+	 * Streams the value to the output instead of building a JSON tree. The output receives
+	 * exactly the structure {@link #marshal(Object)} would return. The default implementation
+	 * is good for simple types, where there is no tree to avoid.
+	 */
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		out.value(marshal(val));
+	}
+
+	static void marshal(ApiType apiType, Object val, JSONOutput out) throws ApiException, IOException {
+		if (apiType instanceof ConcreteClassMapping) apiType = ((ConcreteClassMapping)apiType).objectApiType;
+		((ApiTypeImpl)apiType).marshal(val, out);
+	}
+
 }
 
 
@@ -25,6 +25,7 @@ import com.rest4j.json.JSONArray;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
 
+import java.io.IOException;
 import java.lang.reflect.*;
 import java.util.*;
 
@@ -32,11 +33,15 @@ import java.util.*;
 * @author Joseph Kapizza <joseph@rest4j.com>
 */
 public class ArrayApiTypeImpl extends ApiTypeImpl implements ArrayApiType {
-	ApiType elementType;
+	final ApiType elementType;
+	// the elements are numbers or booleans, so long[], int[], double[], char[] and boolean[]
+	// are marshalled without boxing and reflection
+	final boolean primitive;
 
 	ArrayApiTypeImpl(Marshaller marshaller, ApiType elementType) {
 		super(marshaller);
 		this.elementType = elementType;
+		this.primitive = elementType instanceof NumberApiTypeImpl || elementType instanceof BooleanApiTypeImpl;
 	}
 
 	@Override
@@ -67,6 +72,9 @@ public class ArrayApiTypeImpl extends ApiTypeImpl implements ArrayApiType {
 			if (clz != null && clz.isArray()) componentType = clz.getComponentType();
 			else componentType = ((GenericArrayType) javaType).getGenericComponentType();
 			Class componentClass = Util.getClass(componentType);
+			if (componentClass.isPrimitive() && value.getClass() == clz) {
+				return value; // unmarshalled straight into the array, see unmarshalPrimitive()
+			}
 			Object array = Array.newInstance(componentClass, size(value));
 			int i=0;
 			for (Object element: iterable(value)) {
@@ -99,6 +107,14 @@ public class ArrayApiTypeImpl extends ApiTypeImpl implements ArrayApiType {
 
 	static Iterable iterable(final Object value) {
 		if (value instanceof Iterable) return (Iterable) value;
+		if (value instanceof Iterator) {
+			return new Iterable() {
+				@Override
+				public Iterator iterator() {
+					return (Iterator) value;
+				}
+			};
+		}
 		if (!value.getClass().isArray()) throw new AssertionError("Expected array or Iterable");
 		final int length = Array.getLength(value);
 		return new Iterable() {
@@ -154,10 +170,71 @@ public class ArrayApiTypeImpl extends ApiTypeImpl implements ArrayApiType {
 		}
 	}
 
+	/**
+	 * Unmarshals a JSON array of numbers or booleans into a primitive Java array, with the
+	 * same checks as {@link #unmarshal(Object)} but without the intermediate list of boxed values.
+	 *
+	 * @param componentType long, int, double, char or boolean
+	 */
+	Object unmarshalPrimitive(Object val, Class componentType) throws ApiException {
+		if (!(val instanceof JSONArray)) {
+			throw new ApiException("{value} should be an array");
+		}
+		JSONArray array = (JSONArray) val;
+		int l = array.length();
+		Object result = Array.newInstance(componentType, l);
+		for (int i = 0; i < l; i++) {
+			Object element = array.opt(i);
+			if (JSONObject.NULL.equals(element)) {
+				throw new ApiException("{value}["+i+"] should not be null");
+			}
+			if (componentType == boolean.class) {
+				if (!(element instanceof Boolean)) {
+					throw new ApiException("{value}["+i+"] is expected to be boolean");
+				}
+				((boolean[]) result)[i] = (Boolean) element;
+				continue;
+			}
+			if (!(element instanceof Number)) {
+				throw new ApiException("{value}["+i+"] is expected to be a number");
+			}
+			Number number = (Number) element;
+			if (componentType == long.class) {
+				((long[]) result)[i] = number.longValue();
+			} else if (componentType == int.class) {
+				((int[]) result)[i] = number.intValue();
+			} else if (componentType == double.class) {
+				((double[]) result)[i] = number.doubleValue();
+			} else if (componentType == char.class) {
+				((char[]) result)[i] = (char) number.intValue();
+			} else {
+				throw new AssertionError(componentType);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Whether values of the given Java type are primitive arrays this type handles without boxing.
+	 */
+	boolean isPrimitiveArray(Type javaType) {
+		if (!primitive || !(javaType instanceof Class) || !((Class) javaType).isArray()) return false;
+		Class componentType = ((Class) javaType).getComponentType();
+		return componentType.isPrimitive() && elementType.check(componentType);
+	}
+
 	@Override
 	Object marshal(Object val) throws ApiException {
 		if (val == null) return JSONObject.NULL;
 		JSONArray array = new JSONArray();
+		if (isPrimitiveArray(val.getClass())) {
+			try {
+				marshalPrimitive(val, array);
+			} catch (JSONException e) {
+				throw new ApiException("Cannot create JSON array from "+val).setHttpStatus(500);
+			}
+			return array;
+		}
 		int i=0;
 		for (Object element: iterable(val)) {
 			try {
@@ -169,6 +246,101 @@ public class ArrayApiTypeImpl extends ApiTypeImpl implements ArrayApiType {
 		return array;
 	}
 
+	@Override
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		if (val == null) {
+			super.marshal(val, out);
+			return;
+		}
+		if (!(val instanceof Collection) && !val.getClass().isArray()) {
+			marshalElements(iterable(val).iterator(), out, false);
+			return;
+		}
+		if (isPrimitiveArray(val.getClass())) {
+			try {
+				marshalPrimitive(val, out);
+			} catch (JSONException e) {
+				throw new ApiException("Cannot create JSON array from "+val).setHttpStatus(500);
+			}
+			return;
+		}
+		out.beginArray(size(val));
+		for (Object element: iterable(val)) {
+			try {
+				ApiTypeImpl.marshal(elementType, element, out);
+			} catch (JSONException e) {
+				throw new ApiException("Cannot create JSON array from "+val).setHttpStatus(500);
+			}
+		}
+		out.endArray();
+	}
+
+	private static void marshalPrimitive(Object val, JSONArray array) throws JSONException {
+		if (val instanceof long[]) {
+			for (long element: (long[]) val) array.put(element);
+		} else if (val instanceof int[]) {
+			for (int element: (int[]) val) array.put(element);
+		} else if (val instanceof double[]) {
+			for (double element: (double[]) val) array.put(element);
+		} else if (val instanceof char[]) {
+			for (char element: (char[]) val) array.put((int) element);
+		} else if (val instanceof boolean[]) {
+			for (boolean element: (boolean[]) val) array.put(element);
+		} else {
+			throw new AssertionError(val.getClass());
+		}
+	}
+
+	private static void marshalPrimitive(Object val, JSONOutput out) throws IOException {
+		out.beginArray(Array.getLength(val));
+		if (val instanceof long[]) {
+			for (long element: (long[]) val) out.value(element);
+		} else if (val instanceof int[]) {
+			for (int element: (int[]) val) out.value(element);
+		} else if (val instanceof double[]) {
+			for (double element: (double[]) val) out.value(element);
+		} else if (val instanceof char[]) {
+			for (char element: (char[]) val) out.value((int) element);
+		} else if (val instanceof boolean[]) {
+			for (boolean element: (boolean[]) val) out.value(Boolean.valueOf(element));
+		} else {
+			throw new AssertionError(val.getClass());
+		}
+		out.endArray();
+	}
+
+	/**
+	 * Marshals elements while they are pulled from the iterator, when their number is not known in
+	 * advance. Up to two elements are read ahead, because empty, single-element and longer arrays
+	 * are laid out differently.
+	 *
+	 * @param treePerElement Marshal every element to a JSON tree first, so that field filters apply.
+	 */
+	void marshalElements(Iterator iterator, JSONOutput out, boolean treePerElement) throws ApiException, IOException {
+		if (!iterator.hasNext()) {
+			out.beginArray(0);
+			out.endArray();
+			return;
+		}
+		Object first = iterator.next();
+		out.beginArray(iterator.hasNext() ? JSONOutput.SEVERAL : 1);
+		Object element = first;
+		for (;;) {
+			try {
+				if (treePerElement) {
+					out.value(marshaller.marshal(elementType, element));
+				} else {
+					ApiTypeImpl.marshal(elementType, element, out);
+				}
+			} catch (JSONException e) {
+				throw new ApiException("Cannot create JSON array from "+element).setHttpStatus(500);
+			}
+			if (!iterator.hasNext()) break;
+			element = iterator.next();
+		}
+		out.endArray();
+	}
+
 	@Override
 	public ApiType getElementType() {
 		return elementType;
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import com.rest4j.ApiRequest;
+import com.rest4j.Marshaller;
+import com.rest4j.json.JSONObject;
+import com.rest4j.type.ApiType;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+
+/**
+ * The body argument of service methods that take an array body as Iterator or Iterable.
+ * Each element is unmarshalled only when the service asks for it, so the request
+ * array is never held in memory as a whole.
+ *
+ * Iterator methods cannot throw checked exceptions, so the errors are carried out
+ * of the service method in {@link Failure} and rethrown by the endpoint.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class ArrayBodyIterator implements Iterator<Object> {
+	private final Marshaller marshaller;
+	private final ApiType elementType;
+	private final Type elementJavaType;
+	private final ApiRequest.ArrayElements elements;
+	private int i;
+	private boolean iterated;
+
+	ArrayBodyIterator(Marshaller marshaller, ApiType elementType, Type elementJavaType, ApiRequest.ArrayElements elements) {
+		this.marshaller = marshaller;
+		this.elementType = elementType;
+		this.elementJavaType = elementJavaType;
+		this.elements = elements;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return elements.hasNext();
+		} catch (ApiException e) {
+			throw new Failure(e);
+		} catch (IOException e) {
+			throw new Failure(e);
+		}
+	}
+
+	@Override
+	public Object next() {
+		int index = i++;
+		try {
+			Object element = elements.next();
+			if (JSONObject.NULL.equals(element)) {
+				throw new ApiException("request body[" + index + "] should not be null");
+			}
+			try {
+				return elementType.cast(marshaller.unmarshal(elementType, element), elementJavaType);
+			} catch (ApiException apiex) {
+				throw Util.replaceValue(apiex, "request body[" + index + "]");
+			}
+		} catch (ApiException e) {
+			throw new Failure(e);
+		} catch (IOException e) {
+			throw new Failure(e);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * The request stream can be read only once, so is the returned Iterable.
+	 */
+	Iterable<Object> asIterable() {
+		return new Iterable<Object>() {
+			@Override
+			public Iterator<Object> iterator() {
+				if (iterated) throw new IllegalStateException("The request body can be iterated only once");
+				iterated = true;
+				return ArrayBodyIterator.this;
+			}
+		};
+	}
+
+	/**
+	 * Carries an ApiException or IOException through the service method code.
+	 */
+	static class Failure extends RuntimeException {
+		Failure(Exception cause) {
+			super(cause.getMessage(), cause);
+		}
+	}
+}
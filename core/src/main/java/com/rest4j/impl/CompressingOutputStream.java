@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips the response body on the fly, unless the whole body turns out to be shorter
+ * than the compression threshold. Until that many bytes are written, the data is kept
+ * in memory. Then the Content-encoding header is set and everything goes through a single
+ * GZIPOutputStream to the client. If the stream is closed before reaching the threshold,
+ * the body is sent uncompressed with an exact Content-Length.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class CompressingOutputStream extends OutputStream {
+	private final HttpServletResponse response;
+	private final int threshold;
+	private final int level;
+	private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private OutputStream out;
+
+	CompressingOutputStream(HttpServletResponse response, int threshold, int level) {
+		this.response = response;
+		this.threshold = threshold;
+		this.level = level;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (out != null) {
+			out.write(b);
+		} else {
+			buffer.write(b);
+			if (buffer.size() >= threshold) startCompression();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (out != null) {
+			out.write(b, off, len);
+		} else {
+			buffer.write(b, off, len);
+			if (buffer.size() >= threshold) startCompression();
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// nothing can be sent before we know whether to compress
+		if (out != null) out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out == null) {
+			response.addHeader("Content-Length", String.valueOf(buffer.size()));
+			OutputStream outputStream = openResponse();
+			buffer.writeTo(outputStream);
+			outputStream.close();
+		} else {
+			out.close();
+		}
+	}
+
+	private void startCompression() throws IOException {
+		response.addHeader("Content-encoding", "gzip");
+		out = gzip(openResponse(), level);
+		buffer.writeTo(out);
+		buffer = null;
+	}
+
+	OutputStream openResponse() throws IOException {
+		return response.getOutputStream();
+	}
+
+	static GZIPOutputStream gzip(OutputStream outputStream, final int level) throws IOException {
+		return new GZIPOutputStream(outputStream) {
+			{
+				def.setLevel(level);
+			}
+		};
+	}
+}
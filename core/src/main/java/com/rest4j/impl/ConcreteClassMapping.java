@@ -13,6 +13,7 @@ import com.rest4j.type.ObjectApiType;
 import org.w3c.dom.Element;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +31,14 @@ public class ConcreteClassMapping implements ObjectApiType {
 	List<Field> leftoverFields = new ArrayList<Field>();
 	Object customMapper;
 	ObjectApiTypeImpl objectApiType;
+	// the unmarshal plan, built by link(): the writable fields, non-custom-mapping ones first,
+	// so that we could use them in a custom mapping logic
+	private FieldMapping[] unmarshalFields;
+	private boolean[] unmarshalOptional;
+	// the readable fields, built by link()
+	private FieldMapping[] marshalFields;
+	// false when there are no FieldFilters; the filter chain is not called then
+	private boolean filtered;
 	final static Logger log = Logger.getLogger(ConcreteClassMapping.class.getName());
 
 	public ConcreteClassMapping(MarshallerImpl marshaller, Class clz, Model model, Object customMapper, ServiceProvider serviceProvider, ObjectApiTypeImpl objectApiType) throws ConfigurationException {
@@ -76,11 +85,13 @@ public class ConcreteClassMapping implements ObjectApiType {
 	}
 
 	void unmarshal(JSONObject object, Object inst) throws ApiException {
-		// first unmarshal non-custom-mapping properties, so that we could use them in a custom mapping logic
-		for (FieldMapping field : getOrderedFieldsForUnmarshal()) {
+		FieldMapping[] plan = unmarshalFields;
+		boolean filtered = this.filtered;
+		for (int i = 0; i < plan.length; i++) {
+			FieldMapping field = plan[i];
 			Object fieldVal = object.opt(field.name);
-			fieldVal = objectApiType.fieldFilter.unmarshal(fieldVal, inst, objectApiType, field);
-			if (fieldVal == null && field.isOptional()) {
+			if (filtered) fieldVal = objectApiType.fieldFilter.unmarshal(fieldVal, inst, objectApiType, field);
+			if (fieldVal == null && unmarshalOptional[i]) {
 				// absent fields are initialized to default values or null
 				continue;
 			}
@@ -90,11 +101,11 @@ public class ConcreteClassMapping implements ObjectApiType {
 	}
 
 	void marshal(JSONObject json, Object val) throws ApiException {
-		for (FieldMapping field : fields) {
-			if (field.access == FieldAccessType.WRITEONLY) continue;
+		boolean filtered = this.filtered;
+		for (FieldMapping field : marshalFields) {
 			Object fieldValue = field.value == null ? field.get(val) : field.value;
 			fieldValue = field.marshal(fieldValue);
-			fieldValue = objectApiType.fieldFilter.marshal(fieldValue, val, objectApiType, field);
+			if (filtered) fieldValue = objectApiType.fieldFilter.marshal(fieldValue, val, objectApiType, field);
 			if (fieldValue != null) {
 				try {
 					json.put(field.name, fieldValue);
@@ -105,19 +116,38 @@ public class ConcreteClassMapping implements ObjectApiType {
 		}
 	}
 
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		out.beginObject(marshalFields.length);
+		for (FieldMapping field : marshalFields) {
+			Object fieldValue = field.value == null ? field.get(val) : field.value;
+			out.key(field.name, field.encodedName);
+			try {
+				field.marshal(fieldValue, out);
+			} catch (JSONException e) {
+				throw new ApiException("Wrong value of field "+name+"."+field.name+": "+e.getMessage()).setHttpStatus(500);
+			}
+		}
+		out.endObject();
+	}
+
 	void unmarshalPatch(JSONObject object, Object patched) throws ApiException {
 
-		for (FieldMapping field : getOrderedFieldsForUnmarshal()) {
+		for (FieldMapping field : unmarshalFields) {
 			if (object.has(field.name)) {
 				Object fieldVal = object.opt(field.name);
-				fieldVal = objectApiType.fieldFilter.unmarshal(fieldVal, patched, objectApiType, field);
+				if (filtered) fieldVal = objectApiType.fieldFilter.unmarshal(fieldVal, patched, objectApiType, field);
 				fieldVal = field.unmarshalPatch(fieldVal, patched);
-				field.set(patched, fieldVal);
+				if (objectApiType.copyOnWrite && field instanceof NestedFieldMapping) {
+					// the intermediate objects are still shared with the original
+					((NestedFieldMapping) field).setCopying(patched, fieldVal);
+				} else {
+					field.set(patched, fieldVal);
+				}
 			}
 		}
 	}
 
-	private ArrayList<FieldMapping> getOrderedFieldsForUnmarshal() {
+	private FieldMapping[] getOrderedFieldsForUnmarshal() {
 		// first unmarshal non-custom-mapping properties, so that we could use them in a custom mapping logic
 		ArrayList<FieldMapping> ordered = new ArrayList<FieldMapping>();
 		for (FieldMapping field : fields) {
@@ -128,7 +158,7 @@ public class ConcreteClassMapping implements ObjectApiType {
 			if (!(field instanceof CustomFieldMapping) || field.access == FieldAccessType.READONLY) continue;
 			ordered.add(field);
 		}
-		return ordered;
+		return ordered.toArray(new FieldMapping[ordered.size()]);
 	}
 
 	void link() throws ConfigurationException {
@@ -137,6 +167,25 @@ public class ConcreteClassMapping implements ObjectApiType {
 			fieldImpl.link(marshaller);
 		}
 
+		FieldMapping[] ordered = getOrderedFieldsForUnmarshal();
+		boolean[] optional = new boolean[ordered.length];
+		for (int i = 0; i < ordered.length; i++) {
+			optional[i] = ordered[i].isOptional();
+		}
+		unmarshalOptional = optional;
+		unmarshalFields = ordered;
+		if (objectApiType.copyOnWrite) {
+			for (FieldMapping field : ordered) {
+				if (field instanceof NestedFieldMapping) ((NestedFieldMapping) field).checkCopyOnWrite();
+			}
+		}
+
+		ArrayList<FieldMapping> readable = new ArrayList<FieldMapping>();
+		for (FieldMapping field : fields) {
+			if (field.access != FieldAccessType.WRITEONLY) readable.add(field);
+		}
+		marshalFields = readable.toArray(new FieldMapping[readable.size()]);
+		filtered = marshaller.hasFieldFilters;
 	}
 
 	@Override
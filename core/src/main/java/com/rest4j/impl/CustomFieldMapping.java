@@ -22,7 +22,6 @@ import com.rest4j.ConfigurationException;
 import com.rest4j.impl.model.Field;
 import com.rest4j.impl.model.FieldAccessType;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 
@@ -34,6 +33,8 @@ public class CustomFieldMapping extends FieldMapping {
 	String mapping; // call getter/setter on a CustomMapping object, not the bean itself
 	Method propGetter;
 	Method propSetter;
+	MethodInvoker getter;
+	MethodInvoker setter;
 
 	CustomFieldMapping(MarshallerImpl marshaller, Field fld, Object customMapper, String parent) throws ConfigurationException {
 		super(marshaller, fld, parent);
@@ -79,7 +80,11 @@ public class CustomFieldMapping extends FieldMapping {
 			}
 
 		}
-		if (propSetter != null) propType = propSetter.getGenericParameterTypes()[1];
+		if (propGetter != null) getter = Invokers.forMethod(propGetter);
+		if (propSetter != null) {
+			setter = Invokers.forMethod(propSetter);
+			propType = propSetter.getGenericParameterTypes()[1];
+		}
 		if (propGetter == null && field.getAccess() != FieldAccessType.WRITEONLY && !isConstant()) {
 			if (isOptional()) {
 				return false;
@@ -97,38 +102,29 @@ public class CustomFieldMapping extends FieldMapping {
 
 	@Override
 	public void set(Object inst, Object fieldVal) throws ApiException {
-		if (propSetter == null) return;
+		if (setter == null) return;
+		fieldVal = cast(fieldVal);
 		try {
-			fieldVal = cast(fieldVal);
-			propSetter.invoke(customMapper, inst, fieldVal);
-
-		} catch (IllegalAccessException e) {
-			throw new ApiException("Cannot invoke "+propSetter+" "+e.getMessage()).setHttpStatus(500);
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof ApiException) {
-				throw (ApiException)e.getTargetException();
-			}
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
-			}
-			throw new RuntimeException("Cannot set "+name, e.getTargetException());
+			setter.invoke(customMapper, inst, fieldVal);
+		} catch (ApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot set "+name, e);
 		}
 	}
 
 	@Override
 	public Object get(Object inst) throws ApiException {
 		try {
-			return propGetter.invoke(customMapper, inst);
-		} catch (IllegalAccessException e) {
-			throw new ApiException("Cannot invoke "+propGetter+" "+e.getMessage()).setHttpStatus(500);
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof ApiException) {
-				throw (ApiException)e.getTargetException();
-			}
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
-			}
-			throw new RuntimeException("Cannot get "+name, e.getTargetException());
+			return getter.invoke(customMapper, inst);
+		} catch (ApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot get "+name, e);
 		}
 	}
 
@@ -24,7 +24,7 @@ import com.rest4j.json.JSONObject;
 
 import javax.xml.bind.DatatypeConverter;
 import java.lang.reflect.Type;
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Locale;
@@ -65,6 +65,37 @@ public class DateApiTypeImpl extends SimpleApiTypeImpl implements DateApiType {
 		return "java.util.Date or java.sql.Date";
 	}
 
+	static final long NOT_PARSED = Long.MIN_VALUE;
+	private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+	// the hand-written parser and formatter only deal with Gregorian years with four digits;
+	// java.util.GregorianCalendar switches to the Julian calendar before 1582
+	private static final int MIN_YEAR = 1583, MAX_YEAR = 9999;
+	private static final long MIN_MILLIS = daysSinceEpoch(MIN_YEAR, 1, 1) * MILLIS_PER_DAY;
+	private static final long MAX_MILLIS = daysSinceEpoch(MAX_YEAR + 1, 1, 1) * MILLIS_PER_DAY;
+
+	private static final String[] RFC2822_FORMATS = {
+			"EEE, dd MMM yyyy HH:mm:ss Z",
+			"dd MMM yyyy HH:mm:ss Z",
+			"EEE, dd MMM yyyy HH:mm Z",
+			"dd MMM yyyy HH:mm Z",
+			"EEE, dd MMM yyyy HH:mm:ss",
+			"dd MMM yyyy HH:mm:ss",
+			"EEE, dd MMM yyyy HH:mm",
+			"dd MMM yyyy HH:mm"
+	};
+
+	private static final ThreadLocal<SimpleDateFormat[]> RFC2822 = new ThreadLocal<SimpleDateFormat[]>() {
+		@Override
+		protected SimpleDateFormat[] initialValue() {
+			SimpleDateFormat[] formats = new SimpleDateFormat[RFC2822_FORMATS.length];
+			for (int i = 0; i < formats.length; i++) {
+				formats[i] = new SimpleDateFormat(RFC2822_FORMATS[i], Locale.ENGLISH);
+				formats[i].setTimeZone(TimeZone.getTimeZone("UTC"));
+			}
+			return formats;
+		}
+	};
+
 	Pattern iso8601Timezone = Pattern.compile("[^T]*T.*(Z|[+-]([0-9]{4,4}|[0-9][0-9]|[0-9][0-9]:[0-9][0-9]))");
 
 	@Override
@@ -72,40 +103,109 @@ public class DateApiTypeImpl extends SimpleApiTypeImpl implements DateApiType {
 		if (JSONObject.NULL == val) val = null;
 		if (val instanceof String) {
 			String stringValue = (String) val;
-			try {
-				// try ISO 8601
-				Calendar cal = DatatypeConverter.parseDateTime(stringValue);
-				if (!iso8601Timezone.matcher(stringValue).matches()) {
-					// timezone is absent from input string. Assume UTC
-					cal.setTimeZone(TimeZone.getTimeZone("UTC"));
-				}
-				return cal.getTime();
-			} catch (IllegalArgumentException iae) {
-				// fallback to RFC 2822
-				for (String format: new String[] {
-						"EEE, dd MMM yyyy HH:mm:ss Z",
-						"dd MMM yyyy HH:mm:ss Z",
-						"EEE, dd MMM yyyy HH:mm Z",
-						"dd MMM yyyy HH:mm Z",
-						"EEE, dd MMM yyyy HH:mm:ss",
-						"dd MMM yyyy HH:mm:ss",
-						"EEE, dd MMM yyyy HH:mm",
-						"dd MMM yyyy HH:mm"
-				}) {
-					SimpleDateFormat rfc2822Fmt = new SimpleDateFormat(format, Locale.ENGLISH);
-					rfc2822Fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
-					try {
-						return rfc2822Fmt.parse(stringValue);
-					} catch (ParseException e) {
+			long millis = parseIso8601(stringValue);
+			if (millis != NOT_PARSED) {
+				return new java.util.Date(millis);
+			}
+			if (stringValue.trim().indexOf(' ') < 0) {
+				// some rarer ISO 8601 shape; RFC 2822 dates always have spaces
+				try {
+					Calendar cal = DatatypeConverter.parseDateTime(stringValue);
+					if (!iso8601Timezone.matcher(stringValue).matches()) {
+						// timezone is absent from input string. Assume UTC
+						cal.setTimeZone(TimeZone.getTimeZone("UTC"));
 					}
+					return cal.getTime();
+				} catch (IllegalArgumentException iae) {
+					// fallback to RFC 2822
 				}
 			}
+			for (SimpleDateFormat rfc2822Fmt: RFC2822.get()) {
+				java.util.Date date = rfc2822Fmt.parse(stringValue, new ParsePosition(0));
+				if (date != null) return date;
+			}
 		} else if (val instanceof Number) {
 			return new java.util.Date(((Number)val).longValue()*1000);
 		}
 		throw new ApiException("{value} is expected to be a unix timestamp or a string in either ISO 8601 or RFC 2822 format");
 	}
 
+	/**
+	 * Parses the common ISO 8601 shapes, yyyy-MM-dd and yyyy-MM-ddTHH:mm:ss with optional
+	 * fraction of a second and Z or +hh:mm/-hh:mm timezone, without creating any objects.
+	 * The result is the same as DatatypeConverter.parseDateTime() would give; a missing timezone
+	 * means UTC.
+	 *
+	 * @return Milliseconds since the epoch, or NOT_PARSED if the string has some other shape
+	 * or a year out of 1583..9999.
+	 */
+	static long parseIso8601(String s) {
+		int len = s.length();
+		if (len < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return NOT_PARSED;
+		int year = digits(s, 0, 4), month = digits(s, 5, 2), day = digits(s, 8, 2);
+		if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return NOT_PARSED;
+		long millis = daysSinceEpoch(year, month, day) * MILLIS_PER_DAY;
+		if (len == 10) return millis;
+
+		if (len < 19 || s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':') return NOT_PARSED;
+		int hour = digits(s, 11, 2), minute = digits(s, 14, 2), second = digits(s, 17, 2);
+		if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return NOT_PARSED;
+		millis += ((hour * 60 + minute) * 60 + second) * 1000L;
+
+		int i = 19;
+		if (i < len && s.charAt(i) == '.') {
+			int start = ++i;
+			int fraction = 0;
+			for (; i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+				// the milliseconds are truncated, like XMLGregorianCalendar does
+				if (i - start < 3) fraction = fraction * 10 + s.charAt(i) - '0';
+			}
+			if (i == start) return NOT_PARSED;
+			for (int n = i - start; n < 3; n++) fraction *= 10;
+			millis += fraction;
+		}
+		if (i == len) return millis;
+
+		char sign = s.charAt(i);
+		if (sign == 'Z') return i + 1 == len ? millis : NOT_PARSED;
+		if (sign != '+' && sign != '-' || len != i + 6 || s.charAt(i + 3) != ':') return NOT_PARSED;
+		int tzHour = digits(s, i + 1, 2), tzMinute = digits(s, i + 4, 2);
+		if (tzHour < 0 || tzMinute < 0 || tzMinute > 59 || tzHour * 60 + tzMinute > 14 * 60) return NOT_PARSED;
+		long offset = (tzHour * 60 + tzMinute) * 60000L;
+		return sign == '+' ? millis - offset : millis + offset;
+	}
+
+	/**
+	 * @return The number, or -1 if there are non-digit characters.
+	 */
+	private static int digits(String s, int start, int count) {
+		int result = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') return -1;
+			result = result * 10 + c - '0';
+		}
+		return result;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		if (month == 2) return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+	}
+
+	/**
+	 * Days from 1970-01-01 in the proleptic Gregorian calendar; see
+	 * http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+	 */
+	static long daysSinceEpoch(int year, int month, int day) {
+		if (month <= 2) year--;
+		int era = (year >= 0 ? year : year - 399) / 400;
+		int yearOfEra = year - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
 	ThreadLocal<SimpleDateFormat> JSONDateFormat = new ThreadLocal<SimpleDateFormat>() {
 		@Override
 		protected SimpleDateFormat initialValue() {
@@ -119,11 +219,63 @@ public class DateApiTypeImpl extends SimpleApiTypeImpl implements DateApiType {
 	Object marshal(Object val) throws ApiException {
 		if (val == null) return JSONObject.NULL;
 		// equivalent of Date.toJSON in JavaScript
-		if (val instanceof java.sql.Date) {
-			val = new java.util.Date(((java.sql.Date)val).getTime());
-		} else if (!(val instanceof java.util.Date)) {
+		if (!(val instanceof java.util.Date)) {
 			throw new ApiException("Expected Date, "+val.getClass()+" given").setHttpStatus(500);
 		}
-		return JSONDateFormat.get().format((java.util.Date)val);
+		long millis = ((java.util.Date)val).getTime();
+		if (millis >= MIN_MILLIS && millis < MAX_MILLIS) {
+			return formatIso8601(millis);
+		}
+		return JSONDateFormat.get().format(new java.util.Date(millis));
+	}
+
+	/**
+	 * Formats the time as yyyy-MM-dd'T'HH:mm:ss.S'Z' in UTC, exactly like JSONDateFormat does
+	 * (the milliseconds are not zero-padded). Only for the years 1583..9999.
+	 */
+	static String formatIso8601(long millis) {
+		long days = millis / MILLIS_PER_DAY;
+		int millisOfDay = (int) (millis - days * MILLIS_PER_DAY);
+		if (millisOfDay < 0) { // before 1970
+			days--;
+			millisOfDay += MILLIS_PER_DAY;
+		}
+
+		// http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+		int z = (int) days + 719468; // positive since the year 0
+		int era = z / 146097;
+		int dayOfEra = z - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		char[] chars = new char[24];
+		put(chars, 0, year, 4);
+		chars[4] = '-';
+		put(chars, 5, month, 2);
+		chars[7] = '-';
+		put(chars, 8, day, 2);
+		chars[10] = 'T';
+		put(chars, 11, millisOfDay / 3600000, 2);
+		chars[13] = ':';
+		put(chars, 14, millisOfDay / 60000 % 60, 2);
+		chars[16] = ':';
+		put(chars, 17, millisOfDay / 1000 % 60, 2);
+		chars[19] = '.';
+		int ms = millisOfDay % 1000;
+		int msDigits = ms < 10 ? 1 : ms < 100 ? 2 : 3;
+		put(chars, 20, ms, msDigits);
+		chars[20 + msDigits] = 'Z';
+		return new String(chars, 0, 21 + msDigits);
+	}
+
+	private static void put(char[] chars, int start, int value, int count) {
+		for (int i = start + count - 1; i >= start; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
 	}
 }
@@ -71,6 +71,11 @@ public class DelegatingApiRequest extends ApiRequest {
 		return peer.arrayInput();
 	}
 
+	@Override
+	public ArrayElements arrayElements() throws IOException, ApiException {
+		return peer.arrayElements();
+	}
+
 	@Override
 	public InputStream binaryInput() throws IOException, ApiException {
 		return peer.binaryInput();
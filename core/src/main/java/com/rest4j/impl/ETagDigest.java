@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.JSONResource;
+import com.rest4j.Resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Computes a weak ETag from the bytes written through it, optionally passing them on to another
+ * stream. The digest is the 128-bit MurmurHash3 (x64 variant, seed 0), computed incrementally,
+ * so the body does not need to be kept or walked once more. Unlike the 32-bit hash of the JSON tree,
+ * collisions are practically impossible.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class ETagDigest extends OutputStream {
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final OutputStream out;
+	private final byte[] tail = new byte[16];
+	private int tailLength;
+	private long length;
+	private long h1;
+	private long h2;
+
+	/**
+	 * @param out The stream that receives the bytes; null if they are only digested.
+	 */
+	ETagDigest(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Whether the ETag of the resource is a digest in the 'digest' ETag mode. Array responses that
+	 * are streamed from an Iterator cannot be written twice and have no ETag.
+	 */
+	static boolean isApplicable(Resource resource) {
+		return resource instanceof JSONResource && !(resource instanceof StreamingArrayResource);
+	}
+
+	/**
+	 * The digest ETag of a JSON resource: the digest of its compact (not prettified) form.
+	 */
+	static String of(Resource resource) throws IOException {
+		ETagDigest digest = new ETagDigest(null);
+		JSONResource json = (JSONResource) resource;
+		boolean prettify = json.isPrettify();
+		json.setPrettify(false);
+		try {
+			json.write(digest);
+		} finally {
+			json.setPrettify(prettify);
+		}
+		return digest.getETag();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (out != null) out.write(b);
+		length++;
+		tail[tailLength++] = (byte) b;
+		if (tailLength == 16) {
+			block(tail, 0);
+			tailLength = 0;
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (out != null) out.write(b, off, len);
+		length += len;
+		if (tailLength > 0) {
+			int n = Math.min(len, 16 - tailLength);
+			System.arraycopy(b, off, tail, tailLength, n);
+			tailLength += n;
+			off += n;
+			len -= n;
+			if (tailLength < 16) return;
+			block(tail, 0);
+			tailLength = 0;
+		}
+		for (; len >= 16; off += 16, len -= 16) {
+			block(b, off);
+		}
+		System.arraycopy(b, off, tail, 0, len);
+		tailLength = len;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (out != null) out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out != null) out.close();
+	}
+
+	/**
+	 * The weak ETag of the bytes written so far, like W/"3c3d4e...", with 32 hex digits.
+	 */
+	String getETag() {
+		long k1 = 0, k2 = 0;
+		for (int i = tailLength - 1; i >= 8; i--) {
+			k2 |= (tail[i] & 0xffL) << ((i - 8) * 8);
+		}
+		for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+			k1 |= (tail[i] & 0xffL) << (i * 8);
+		}
+		long x1 = h1, x2 = h2;
+		if (tailLength > 8) x2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+		if (tailLength > 0) x1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+		x1 ^= length;
+		x2 ^= length;
+		x1 += x2;
+		x2 += x1;
+		x1 = mix(x1);
+		x2 = mix(x2);
+		x1 += x2;
+		x2 += x1;
+		char[] etag = new char[36];
+		etag[0] = 'W';
+		etag[1] = '/';
+		etag[2] = '"';
+		hex(x1, etag, 3);
+		hex(x2, etag, 19);
+		etag[35] = '"';
+		return new String(etag);
+	}
+
+	private void block(byte[] b, int off) {
+		long k1 = getLong(b, off);
+		long k2 = getLong(b, off + 8);
+		h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+		h1 = Long.rotateLeft(h1, 27) + h2;
+		h1 = h1 * 5 + 0x52dce729;
+		h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+		h2 = Long.rotateLeft(h2, 31) + h1;
+		h2 = h2 * 5 + 0x38495ab5;
+	}
+
+	private static long getLong(byte[] b, int off) {
+		return (b[off] & 0xffL) | (b[off + 1] & 0xffL) << 8 | (b[off + 2] & 0xffL) << 16 | (b[off + 3] & 0xffL) << 24
+				| (b[off + 4] & 0xffL) << 32 | (b[off + 5] & 0xffL) << 40 | (b[off + 6] & 0xffL) << 48 | (b[off + 7] & 0xffL) << 56;
+	}
+
+	private static long mix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	private static void hex(long value, char[] out, int pos) {
+		for (int i = 15; i >= 0; i--) {
+			out[pos + i] = HEX[(int) value & 0xf];
+			value >>>= 4;
+		}
+	}
+}
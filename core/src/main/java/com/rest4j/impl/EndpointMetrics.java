@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The live counters of one endpoint in {@link JmxMetricsSink}.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class EndpointMetrics {
+	final AtomicLong requests = new AtomicLong();
+	final AtomicLong bytesIn = new AtomicLong();
+	final AtomicLong bytesOut = new AtomicLong();
+	final ConcurrentMap<Integer, AtomicLong> statuses = new ConcurrentHashMap<Integer, AtomicLong>();
+	final LatencyHistogram total = new LatencyHistogram();
+	final LatencyHistogram[] phases = new LatencyHistogram[RequestMetrics.PHASES.length];
+
+	EndpointMetrics() {
+		for (int i = 0; i < phases.length; i++) {
+			phases[i] = new LatencyHistogram();
+		}
+	}
+
+	void record(RequestMetrics metrics) {
+		requests.incrementAndGet();
+		bytesIn.addAndGet(metrics.getBytesIn());
+		bytesOut.addAndGet(metrics.getBytesOut());
+		AtomicLong statusCount = statuses.get(metrics.getStatus());
+		if (statusCount == null) {
+			AtomicLong newCount = new AtomicLong();
+			statusCount = statuses.putIfAbsent(metrics.getStatus(), newCount);
+			if (statusCount == null) statusCount = newCount;
+		}
+		statusCount.incrementAndGet();
+		total.record(metrics.getTotalNanos());
+		for (RequestMetrics.Phase phase: RequestMetrics.PHASES) {
+			phases[phase.ordinal()].record(metrics.getNanos(phase));
+		}
+	}
+
+	EndpointStatistics snapshot() {
+		Map<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+		for (Map.Entry<Integer, AtomicLong> entry: statuses.entrySet()) {
+			statusCounts.put(entry.getKey(), entry.getValue().get());
+		}
+		Map<String, EndpointStatistics.Latency> phaseStats = new TreeMap<String, EndpointStatistics.Latency>();
+		for (RequestMetrics.Phase phase: RequestMetrics.PHASES) {
+			phaseStats.put(phase.name(), new EndpointStatistics.Latency(phases[phase.ordinal()]));
+		}
+		return new EndpointStatistics(requests.get(), bytesIn.get(), bytesOut.get(), statusCounts,
+				new EndpointStatistics.Latency(total), phaseStats);
+	}
+}
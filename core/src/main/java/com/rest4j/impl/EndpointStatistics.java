@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import java.util.Map;
+
+/**
+ * A point-in-time view of the metrics of one endpoint, as exposed through {@link ApiMetricsMXBean}.
+ * Latencies are in microseconds.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class EndpointStatistics {
+	private final long requestCount;
+	private final long bytesIn;
+	private final long bytesOut;
+	private final Map<Integer, Long> statusCounts;
+	private final Latency total;
+	private final Map<String, Latency> phases;
+
+	EndpointStatistics(long requestCount, long bytesIn, long bytesOut, Map<Integer, Long> statusCounts, Latency total, Map<String, Latency> phases) {
+		this.requestCount = requestCount;
+		this.bytesIn = bytesIn;
+		this.bytesOut = bytesOut;
+		this.statusCounts = statusCounts;
+		this.total = total;
+		this.phases = phases;
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	public long getBytesIn() {
+		return bytesIn;
+	}
+
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	/**
+	 * The number of responses by HTTP status code.
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		return statusCounts;
+	}
+
+	/**
+	 * The whole request time, from routing to the end of the response output.
+	 */
+	public Latency getTotal() {
+		return total;
+	}
+
+	/**
+	 * The time spent in every {@link RequestMetrics.Phase}, by the phase name.
+	 */
+	public Map<String, Latency> getPhases() {
+		return phases;
+	}
+
+	public static class Latency {
+		private final long count;
+		private final double mean;
+		private final double p50;
+		private final double p90;
+		private final double p99;
+		private final double max;
+
+		Latency(LatencyHistogram histogram) {
+			count = histogram.getCount();
+			mean = count == 0 ? 0 : micros(histogram.getSum()) / count;
+			p50 = micros(histogram.getPercentile(0.5));
+			p90 = micros(histogram.getPercentile(0.9));
+			p99 = micros(histogram.getPercentile(0.99));
+			max = micros(histogram.getMax());
+		}
+
+		private static double micros(long nanos) {
+			return nanos / 1000.0;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public double getP50() {
+			return p50;
+		}
+
+		public double getP90() {
+			return p90;
+		}
+
+		public double getP99() {
+			return p99;
+		}
+
+		public double getMax() {
+			return max;
+		}
+	}
+}
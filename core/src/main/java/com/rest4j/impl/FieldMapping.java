@@ -22,7 +22,9 @@ import com.rest4j.impl.model.*;
 import com.rest4j.type.ApiType;
 import com.rest4j.type.SimpleApiType;
 import com.rest4j.json.JSONObject;
+import com.rest4j.json.UTF8Writer;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.List;
 
@@ -43,9 +45,13 @@ abstract class FieldMapping implements com.rest4j.type.Field {
 	Marshaller marshaller;
 
 	Converter<Object, Object> converter = IdConverter.getInstance();
+	boolean convert; // false when the converter is IdConverter; set by link()
+	boolean primitiveArray; // the property is a long[], int[], double[], char[] or boolean[]; set by link()
+	final byte[] encodedName; // "name": in UTF-8
 
 	FieldMapping(MarshallerImpl marshaller, Field fld, String parent) throws ConfigurationException {
 		name = fld.getName();
+		encodedName = UTF8Writer.encodeKey(name);
 		this.parent = parent;
 		nullable = fld.isNullable();
 		hasDefault = fld.getDefault() != null;
@@ -89,7 +95,9 @@ abstract class FieldMapping implements com.rest4j.type.Field {
 			throw new ApiException("Field " + parent + "." + name + " is absent");
 		}
 		try {
-			Object result = marshaller.unmarshal(type, val);
+			Object result = primitiveArray
+					? ((ArrayApiTypeImpl)type).unmarshalPrimitive(val, ((Class)propType).getComponentType())
+					: marshaller.unmarshal(type, val);
 			if (value != null && !((SimpleApiType)type).equals(value, result)) {
 				throw new ApiException("Field " + parent + "." + name + " should have value "+value);
 			}
@@ -122,11 +130,20 @@ abstract class FieldMapping implements com.rest4j.type.Field {
 	public abstract void set(Object inst, Object fieldVal) throws ApiException;
 
 	public Object marshal(Object val) throws ApiException {
-		val = converter.marshal(val, type);
+		if (convert) val = converter.marshal(val, type);
 		if (val == null) return JSONObject.NULL;
 		return marshaller.marshal(type, val);
 	}
 
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		if (convert) val = converter.marshal(val, type);
+		if (val == null) {
+			out.value(JSONObject.NULL);
+		} else {
+			ApiTypeImpl.marshal(type, val, out);
+		}
+	}
+
 	public abstract Object get(Object inst) throws ApiException;
 
 	boolean isConstant() {
@@ -165,6 +182,8 @@ abstract class FieldMapping implements com.rest4j.type.Field {
 		if (!converter.checkOuterType(type)) {
 			throw new ConfigurationException("The property "+parent+"."+name+" type does not correspond to converter "+converter+"; expected "+converter.getRequiredOuterType());
 		}
+		convert = converter != IdConverter.getInstance();
+		primitiveArray = !convert && type instanceof ArrayApiTypeImpl && ((ArrayApiTypeImpl)type).isPrimitiveArray(propType);
 
 		checkType();
 	}
@@ -178,7 +197,7 @@ abstract class FieldMapping implements com.rest4j.type.Field {
 
 	protected Object cast(Object fieldVal) throws ApiException {
 		try {
-			fieldVal = converter.unmarshal(fieldVal, propType, type);
+			if (convert) fieldVal = converter.unmarshal(fieldVal, propType, type);
 			fieldVal = type.cast(fieldVal, propType);
 		} catch (NullPointerException npe) {
 			throw new ApiException("Field " + parent + "." + name + " value is absent");
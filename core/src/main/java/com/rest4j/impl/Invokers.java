@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.InstructionConstants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.ReferenceType;
+import org.apache.bcel.generic.Type;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Creates {@link MethodInvoker}s for accessor methods. For a public method of a public
+ * class a tiny MethodInvoker subclass is generated with BCEL that casts the arguments,
+ * calls the method with a plain invokevirtual/invokeinterface/invokestatic and boxes
+ * the result. Everything else (non-public classes, more than two parameters,
+ * bootstrap classes, failed generation) falls back to Method.invoke.
+ *
+ * <p>The invokers are kept by the field mappings that use them. The cache that shares them
+ * between mappings lives in the class loader of the generated classes, which is only weakly
+ * referenced from here, so neither the bean class loaders nor the generated classes leak.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class Invokers {
+	static final String GENERATED_PREFIX = "com.rest4j.impl.generated.Invoker";
+
+	private static final Class[] PRIMITIVES = {
+			boolean.class, char.class, byte.class, short.class, int.class, long.class, float.class, double.class
+	};
+	private static final Class[] WRAPPERS = {
+			Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class
+	};
+
+	private static final Map<ClassLoader, WeakReference<GeneratedClassLoader>> loaders = new WeakHashMap<ClassLoader, WeakReference<GeneratedClassLoader>>();
+	private static int counter;
+
+	static synchronized MethodInvoker forMethod(Method method) {
+		GeneratedClassLoader loader = getLoader(method.getDeclaringClass().getClassLoader());
+		MethodInvoker invoker = loader.invokers.get(method);
+		if (invoker == null) {
+			if (canGenerate(method)) {
+				try {
+					invoker = generate(method, loader);
+				} catch (Exception e) {
+					// fall back to reflection
+				} catch (LinkageError e) {
+					// fall back to reflection
+				}
+			}
+			if (invoker == null) {
+				invoker = new ReflectiveInvoker(method);
+			}
+			loader.invokers.put(method, invoker);
+		}
+		return invoker;
+	}
+
+	static boolean canGenerate(Method method) {
+		if (!Modifier.isPublic(method.getModifiers())) return false;
+		if (method.getParameterTypes().length > 2) return false;
+		Class owner = method.getDeclaringClass();
+		if (owner.getClassLoader() == null) return false;
+		if (!isPublic(owner)) return false;
+		for (Class paramType : method.getParameterTypes()) {
+			if (!isPublic(paramType)) return false;
+		}
+		return true;
+	}
+
+	private static boolean isPublic(Class clz) {
+		while (clz.isArray()) clz = clz.getComponentType();
+		if (clz.isPrimitive()) return true;
+		for (; clz != null; clz = clz.getEnclosingClass()) {
+			if (!Modifier.isPublic(clz.getModifiers())) return false;
+		}
+		return true;
+	}
+
+	private static MethodInvoker generate(Method method, GeneratedClassLoader loader) throws Exception {
+		Class owner = method.getDeclaringClass();
+		Class[] paramTypes = method.getParameterTypes();
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		String className = GENERATED_PREFIX + (++counter);
+
+		ClassGen cg = new ClassGen(className, MethodInvoker.class.getName(), "<generated>",
+				Constants.ACC_PUBLIC | Constants.ACC_FINAL | Constants.ACC_SUPER, null);
+		cg.addEmptyConstructor(Constants.ACC_PUBLIC);
+		InstructionFactory factory = new InstructionFactory(cg);
+		InstructionList il = new InstructionList();
+
+		if (!isStatic) {
+			il.append(InstructionFactory.createLoad(Type.OBJECT, 1));
+			il.append(factory.createCheckCast(new ObjectType(owner.getName())));
+		}
+		Type[] argTypes = new Type[paramTypes.length];
+		for (int i = 0; i < paramTypes.length; i++) {
+			il.append(InstructionFactory.createLoad(Type.OBJECT, i + 2));
+			unbox(factory, il, paramTypes[i]);
+			argTypes[i] = Type.getType(paramTypes[i]);
+		}
+		InstructionHandle argsEnd = il.getEnd();
+		short kind = isStatic ? Constants.INVOKESTATIC : owner.isInterface() ? Constants.INVOKEINTERFACE : Constants.INVOKEVIRTUAL;
+		il.append(factory.createInvoke(owner.getName(), method.getName(), Type.getType(method.getReturnType()), argTypes, kind));
+		box(factory, il, method.getReturnType());
+		il.append(InstructionFactory.createReturn(Type.OBJECT));
+
+		// a failed checkcast or unboxing becomes throw cannotInvoke(e); exceptions of the method itself are not caught
+		InstructionHandle handler = null;
+		if (argsEnd != null) {
+			handler = il.append(InstructionFactory.createLoad(Type.OBJECT, 0));
+			il.append(InstructionConstants.SWAP);
+			il.append(factory.createInvoke(MethodInvoker.class.getName(), "cannotInvoke", new ObjectType(ApiException.class.getName()),
+					new Type[]{new ObjectType(RuntimeException.class.getName())}, Constants.INVOKEVIRTUAL));
+			il.append(InstructionConstants.ATHROW);
+		}
+
+		Type[] invokeArgTypes = new Type[paramTypes.length + 1];
+		Arrays.fill(invokeArgTypes, Type.OBJECT);
+		String[] invokeArgNames = new String[paramTypes.length + 1];
+		invokeArgNames[0] = "target";
+		for (int i = 1; i < invokeArgNames.length; i++) invokeArgNames[i] = "arg" + i;
+		MethodGen mg = new MethodGen(Constants.ACC_PUBLIC, Type.OBJECT, invokeArgTypes, invokeArgNames, "invoke", className, il, cg.getConstantPool());
+		if (handler != null) {
+			mg.addExceptionHandler(il.getStart(), argsEnd, handler, new ObjectType(RuntimeException.class.getName()));
+		}
+		mg.setMaxStack();
+		mg.setMaxLocals();
+		cg.addMethod(mg.getMethod());
+		il.dispose();
+
+		byte[] bytes = cg.getJavaClass().getBytes();
+		MethodInvoker invoker = (MethodInvoker) loader.define(className, bytes).newInstance();
+		invoker.method = method;
+		return invoker;
+	}
+
+	private static void unbox(InstructionFactory factory, InstructionList il, Class type) {
+		if (type.isPrimitive()) {
+			Class wrapper = wrapperOf(type);
+			il.append(factory.createCheckCast(new ObjectType(wrapper.getName())));
+			il.append(factory.createInvoke(wrapper.getName(), type.getName() + "Value", Type.getType(type), Type.NO_ARGS, Constants.INVOKEVIRTUAL));
+		} else if (type != Object.class) {
+			il.append(factory.createCheckCast((ReferenceType) Type.getType(type)));
+		}
+	}
+
+	private static void box(InstructionFactory factory, InstructionList il, Class type) {
+		if (type == void.class) {
+			il.append(InstructionFactory.createNull(Type.OBJECT));
+		} else if (type.isPrimitive()) {
+			Class wrapper = wrapperOf(type);
+			il.append(factory.createInvoke(wrapper.getName(), "valueOf", Type.getType(wrapper), new Type[]{Type.getType(type)}, Constants.INVOKESTATIC));
+		}
+	}
+
+	private static Class wrapperOf(Class primitive) {
+		for (int i = 0; i < PRIMITIVES.length; i++) {
+			if (PRIMITIVES[i] == primitive) return WRAPPERS[i];
+		}
+		throw new AssertionError(primitive);
+	}
+
+	private static GeneratedClassLoader getLoader(ClassLoader parent) {
+		WeakReference<GeneratedClassLoader> ref = loaders.get(parent);
+		GeneratedClassLoader loader = ref == null ? null : ref.get();
+		if (loader == null) {
+			loader = new GeneratedClassLoader(parent);
+			loaders.put(parent, new WeakReference<GeneratedClassLoader>(loader));
+		}
+		return loader;
+	}
+
+	/**
+	 * Sees the classes of the bean's class loader plus MethodInvoker and ApiException, which may
+	 * live in a different (e.g. parent or sibling) class loader. Also caches the invokers
+	 * for the methods of the bean's class loader; a generated invoker keeps its class loader,
+	 * and so the cache, alive.
+	 */
+	static class GeneratedClassLoader extends ClassLoader {
+		final Map<Method, MethodInvoker> invokers = new HashMap<Method, MethodInvoker>();
+
+		GeneratedClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (name.equals(MethodInvoker.class.getName())) return MethodInvoker.class;
+			if (name.equals(ApiException.class.getName())) return ApiException.class;
+			return super.loadClass(name, resolve);
+		}
+
+		Class define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	static class ReflectiveInvoker extends MethodInvoker {
+		ReflectiveInvoker(Method method) {
+			this.method = method;
+		}
+
+		@Override
+		public Object invoke(Object target) throws Exception {
+			return call(target);
+		}
+
+		@Override
+		public Object invoke(Object target, Object arg) throws Exception {
+			return call(target, arg);
+		}
+
+		@Override
+		public Object invoke(Object target, Object arg1, Object arg2) throws Exception {
+			return call(target, arg1, arg2);
+		}
+
+		private Object call(Object target, Object... args) throws Exception {
+			try {
+				return method.invoke(target, args);
+			} catch (IllegalArgumentException e) {
+				throw cannotInvoke(e);
+			} catch (IllegalAccessException e) {
+				throw new ApiException("Cannot invoke "+method+" "+e.getMessage()).setHttpStatus(500);
+			} catch (InvocationTargetException e) {
+				if (e.getTargetException() instanceof Exception) {
+					throw (Exception)e.getTargetException();
+				}
+				if (e.getTargetException() instanceof Error) {
+					throw (Error)e.getTargetException();
+				}
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.json.JSONException;
+
+import java.util.Arrays;
+
+/**
+ * Computes the same hash code as the JSONObject/JSONArray tree would have (that is,
+ * the hash code of the underlying LinkedHashMap/ArrayList), so that streamed resources
+ * keep their ETags.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class JSONHashOutput extends JSONOutput {
+	private int[] hashes = new int[16];
+	private int[] keyHashes = new int[16];
+	private boolean[] objects = new boolean[16];
+	private int depth;
+	private int hashCode;
+
+	@Override
+	void beginObject(int size) {
+		push(true, 0);
+	}
+
+	@Override
+	void key(String key) {
+		keyHashes[depth - 1] = key.hashCode();
+	}
+
+	@Override
+	void endObject() {
+		add(hashes[--depth]);
+	}
+
+	@Override
+	void beginArray(int size) {
+		push(false, 1);
+	}
+
+	@Override
+	void endArray() {
+		add(hashes[--depth]);
+	}
+
+	@Override
+	protected void writeValue(Object value) {
+		add(value == null ? 0 : value.hashCode());
+	}
+
+	@Override
+	void value(int value) {
+		add(value); // Integer.hashCode()
+	}
+
+	@Override
+	void value(long value) {
+		add((int) (value ^ (value >>> 32))); // Long.hashCode()
+	}
+
+	@Override
+	void value(double value) {
+		if (Double.isInfinite(value) || Double.isNaN(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		long bits = Double.doubleToLongBits(value);
+		add((int) (bits ^ (bits >>> 32))); // Double.hashCode()
+	}
+
+	int getHashCode() {
+		return hashCode;
+	}
+
+	private void push(boolean object, int initial) {
+		if (depth == hashes.length) {
+			hashes = Arrays.copyOf(hashes, depth * 2);
+			keyHashes = Arrays.copyOf(keyHashes, depth * 2);
+			objects = Arrays.copyOf(objects, depth * 2);
+		}
+		objects[depth] = object;
+		hashes[depth] = initial;
+		depth++;
+	}
+
+	private void add(int hash) {
+		if (depth == 0) {
+			hashCode = hash;
+		} else if (objects[depth - 1]) {
+			// Map.hashCode() is the sum of entry hash codes
+			hashes[depth - 1] += keyHashes[depth - 1] ^ hash;
+		} else {
+			// List.hashCode()
+			hashes[depth - 1] = 31 * hashes[depth - 1] + hash;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes the request body straight from the servlet InputStream, so that the JSON parser
+ * can work on the body while it is being received. The bytes go through a single
+ * buffer that is refilled in place, and the decoder writes directly into the caller's
+ * char array. A leading byte order mark is skipped. Reading more than maxBodySize
+ * bytes fails with {@link BodyTooLargeException}.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class JSONInputReader extends Reader {
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	static final int BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	private final long maxBodySize;
+	private final boolean utf8;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+	private long total;
+	private boolean eof;
+	private boolean flushing;
+	private boolean done;
+	private boolean started;
+
+	/**
+	 * @param maxBodySize The maximum number of bytes to read, or -1 for no limit.
+	 */
+	JSONInputReader(InputStream in, Charset charset, long maxBodySize) {
+		this.in = in;
+		this.maxBodySize = maxBodySize;
+		this.utf8 = UTF8.equals(charset);
+		// same replacement behaviour as InputStreamReader
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		bytes.flip();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) return 0;
+		if (done) return -1;
+		if (!started && utf8) {
+			// look at the raw bytes so that the BOM never reaches the decoder
+			while (bytes.remaining() < 3 && !eof) fill();
+			skipUtf8Bom();
+			started = true;
+		}
+		CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+		for (;;) {
+			if (!flushing) {
+				CoderResult result = decoder.decode(bytes, out, eof);
+				if (eof && result.isUnderflow()) flushing = true;
+			}
+			if (flushing && decoder.flush(out).isUnderflow()) done = true;
+			if (out.position() > off) break;
+			if (done) return -1;
+			fill();
+		}
+		int n = out.position() - off;
+		if (!started) {
+			started = true;
+			if (cbuf[off] == '\ufeff') {
+				System.arraycopy(cbuf, off + 1, cbuf, off, --n);
+				if (n == 0) return read(cbuf, off, len);
+			}
+		}
+		return n;
+	}
+
+	private void skipUtf8Bom() {
+		int pos = bytes.position();
+		if (bytes.remaining() >= 3 && bytes.get(pos) == (byte)0xEF && bytes.get(pos + 1) == (byte)0xBB && bytes.get(pos + 2) == (byte)0xBF) {
+			bytes.position(pos + 3);
+		}
+	}
+
+	private void fill() throws IOException {
+		bytes.compact();
+		int n = in.read(bytes.array(), bytes.position(), bytes.remaining());
+		if (n < 0) {
+			eof = true;
+		} else {
+			bytes.position(bytes.position() + n);
+			total += n;
+		}
+		bytes.flip();
+		if (maxBodySize >= 0 && total > maxBodySize) {
+			throw new BodyTooLargeException(maxBodySize);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Thrown when the request body is longer than allowed.
+	 */
+	static class BodyTooLargeException extends IOException {
+		BodyTooLargeException(long maxBodySize) {
+			super("Request body is larger than " + maxBodySize + " bytes");
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.json.JSONObject;
+import com.rest4j.json.UTF8Writer;
+
+import java.io.IOException;
+
+/**
+ * Receives the JSON structure produced by {@link ApiTypeImpl#marshal(Object, JSONOutput)} as a
+ * sequence of events, so that the response can be serialized (or hashed) without first building
+ * a JSONObject/JSONArray tree. The events correspond one-to-one to the tree {@link ApiTypeImpl#marshal(Object)}
+ * would produce: containers announce the number of members they are going to have, leaf values are
+ * in the com.rest4j.json.* type hierarchy.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+abstract class JSONOutput {
+	/**
+	 * Passed to {@link #beginArray(int)} instead of the size when the array is known to have
+	 * more than one element, but not how many.
+	 */
+	static final int SEVERAL = -1;
+
+	abstract void beginObject(int size) throws IOException;
+
+	abstract void key(String key) throws IOException;
+
+	/**
+	 * Outputs a key that was pre-encoded with {@link UTF8Writer#encodeKey(String)}.
+	 */
+	void key(String key, byte[] encodedKey) throws IOException {
+		key(key);
+	}
+
+	abstract void endObject() throws IOException;
+
+	abstract void beginArray(int size) throws IOException;
+
+	abstract void endArray() throws IOException;
+
+	/**
+	 * Outputs a leaf value: String, Number, Boolean, JSONObject.NULL, null or a prebuilt
+	 * JSONObject. Non-finite numbers are rejected with a JSONException, just like JSONObject.put does.
+	 */
+	void value(Object value) throws IOException {
+		JSONObject.testValidity(value);
+		writeValue(value);
+	}
+
+	/**
+	 * Outputs a number that would be an Integer in the tree.
+	 */
+	void value(int value) throws IOException {
+		writeValue(Integer.valueOf(value));
+	}
+
+	/**
+	 * Outputs a number that would be a Long in the tree.
+	 */
+	void value(long value) throws IOException {
+		writeValue(Long.valueOf(value));
+	}
+
+	/**
+	 * Outputs a number that would be a Double in the tree; non-finite values are rejected
+	 * with a JSONException.
+	 */
+	void value(double value) throws IOException {
+		value(Double.valueOf(value));
+	}
+
+	protected abstract void writeValue(Object value) throws IOException;
+
+}
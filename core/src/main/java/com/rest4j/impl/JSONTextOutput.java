@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.json.JSONException;
+import com.rest4j.json.JSONObject;
+import com.rest4j.json.UTF8Writer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes JSON text character-for-character identical to JSONObject.write(writer, indentFactor)
+ * and JSONArray.write(writer, indentFactor), including their pretty-printing quirks
+ * (single-member containers are not broken into lines). When writing to a {@link UTF8Writer},
+ * the pre-encoded keys are copied as bytes.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class JSONTextOutput extends JSONOutput {
+	private final Writer writer;
+	private final UTF8Writer utf8; // the same writer, if it is a UTF8Writer
+	private final int indentFactor;
+	private int[] sizes = new int[16];
+	private int[] counts = new int[16];
+	private int[] indents = new int[16];
+	private boolean[] objects = new boolean[16];
+	private int depth;
+
+	JSONTextOutput(Writer writer, int indentFactor) {
+		this.writer = writer;
+		this.utf8 = writer instanceof UTF8Writer ? (UTF8Writer) writer : null;
+		this.indentFactor = indentFactor;
+	}
+
+	@Override
+	void beginObject(int size) throws IOException {
+		begin(size, true);
+		writer.write('{');
+	}
+
+	@Override
+	void key(String key) throws IOException {
+		separate();
+		if (utf8 != null) {
+			utf8.writeKey(key);
+		} else {
+			JSONObject.quote(key, writer);
+			writer.write(':');
+		}
+		if (indentFactor > 0) {
+			writer.write(' ');
+		}
+	}
+
+	@Override
+	void key(String key, byte[] encodedKey) throws IOException {
+		if (utf8 == null) {
+			key(key);
+			return;
+		}
+		separate();
+		utf8.writeRaw(encodedKey);
+		if (indentFactor > 0) {
+			writer.write(' ');
+		}
+	}
+
+	@Override
+	void endObject() throws IOException {
+		end();
+		writer.write('}');
+	}
+
+	@Override
+	void beginArray(int size) throws IOException {
+		begin(size, false);
+		writer.write('[');
+	}
+
+	@Override
+	void endArray() throws IOException {
+		end();
+		writer.write(']');
+	}
+
+	@Override
+	protected void writeValue(Object value) throws IOException {
+		int indent = childIndent();
+		if (depth > 0 && !objects[depth - 1]) separate();
+		try {
+			JSONObject.writeValue(writer, value, indentFactor, indent);
+		} catch (JSONException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	void value(int value) throws IOException {
+		value((long) value);
+	}
+
+	@Override
+	void value(long value) throws IOException {
+		if (depth > 0 && !objects[depth - 1]) separate();
+		if (utf8 != null) {
+			utf8.writeLong(value);
+		} else {
+			writer.write(Long.toString(value));
+		}
+	}
+
+	@Override
+	void value(double value) throws IOException {
+		if (Double.isInfinite(value) || Double.isNaN(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		if (depth > 0 && !objects[depth - 1]) separate();
+		if (utf8 != null) {
+			utf8.writeDouble(value);
+		} else {
+			writer.write(JSONObject.doubleToString(value));
+		}
+	}
+
+	private void begin(int size, boolean object) throws IOException {
+		int indent = childIndent();
+		if (depth > 0 && !objects[depth - 1]) separate();
+		if (depth == sizes.length) {
+			sizes = Arrays.copyOf(sizes, depth * 2);
+			counts = Arrays.copyOf(counts, depth * 2);
+			indents = Arrays.copyOf(indents, depth * 2);
+			objects = Arrays.copyOf(objects, depth * 2);
+		}
+		sizes[depth] = size;
+		counts[depth] = 0;
+		indents[depth] = indent;
+		objects[depth] = object;
+		depth++;
+	}
+
+	private void end() throws IOException {
+		depth--;
+		if (sizes[depth] > 1 || sizes[depth] == SEVERAL) {
+			if (indentFactor > 0) {
+				writer.write('\n');
+			}
+			indent(indents[depth]);
+		}
+	}
+
+	/**
+	 * Writes the comma, the newline and the indentation before an object key or an array element.
+	 */
+	private void separate() throws IOException {
+		int d = depth - 1;
+		if (sizes[d] != 1) {
+			if (counts[d] > 0) {
+				writer.write(',');
+			}
+			if (indentFactor > 0) {
+				writer.write('\n');
+			}
+			indent(indents[d] + indentFactor);
+		}
+		counts[d]++;
+	}
+
+	/**
+	 * The indentation a nested value of the current container is written with.
+	 */
+	private int childIndent() {
+		if (depth == 0) return 0;
+		int d = depth - 1;
+		return sizes[d] == 1 ? indents[d] : indents[d] + indentFactor;
+	}
+
+	private void indent(int indent) throws IOException {
+		for (int i = 0; i < indent; i++) {
+			writer.write(' ');
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.MetricsSink;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The default {@link MetricsSink}: aggregates request metrics per endpoint with lock-free counters
+ * and latency histograms, and publishes them as the MXBean "com.rest4j:type=API,name=&lt;name>".
+ * Use one sink per API instance.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class JmxMetricsSink implements MetricsSink, ApiMetricsMXBean {
+	public static final String UNMATCHED = "(unmatched)";
+
+	private final ObjectName objectName;
+	private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+	private final AtomicLong requests = new AtomicLong();
+
+	/**
+	 * @param name The name of the API, used in the MBean name.
+	 */
+	public JmxMetricsSink(String name) {
+		try {
+			objectName = new ObjectName("com.rest4j:type=API,name=" + ObjectName.quote(name));
+		} catch (MalformedObjectNameException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * Registers the MBean with the platform MBean server, replacing the one left by the previous
+	 * API instance with the same name.
+	 */
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.registerMBean(this, objectName);
+		} catch (InstanceAlreadyExistsException e) {
+			server.unregisterMBean(objectName);
+			server.registerMBean(this, objectName);
+		}
+	}
+
+	public void unregister() throws JMException {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (InstanceNotFoundException e) {
+			// not registered
+		}
+	}
+
+	@Override
+	public void record(RequestMetrics metrics) {
+		String name = metrics.getEndpoint() == null ? UNMATCHED : metrics.getEndpoint();
+		EndpointMetrics endpoint = endpoints.get(name);
+		if (endpoint == null) {
+			EndpointMetrics newEndpoint = new EndpointMetrics();
+			endpoint = endpoints.putIfAbsent(name, newEndpoint);
+			if (endpoint == null) endpoint = newEndpoint;
+		}
+		endpoint.record(metrics);
+		requests.incrementAndGet();
+	}
+
+	@Override
+	public Map<String, EndpointStatistics> getEndpoints() {
+		Map<String, EndpointStatistics> stats = new TreeMap<String, EndpointStatistics>();
+		for (Map.Entry<String, EndpointMetrics> entry: endpoints.entrySet()) {
+			stats.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return stats;
+	}
+
+	@Override
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	@Override
+	public void reset() {
+		endpoints.clear();
+		requests.set(0);
+	}
+}
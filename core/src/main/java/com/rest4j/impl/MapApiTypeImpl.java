@@ -21,23 +21,26 @@ import com.rest4j.ApiException;
 import com.rest4j.Marshaller;
 import com.rest4j.type.ApiType;
 import com.rest4j.type.MapApiType;
+import com.rest4j.type.ObjectApiType;
 import com.rest4j.type.StringApiType;
 import org.apache.commons.lang.StringEscapeUtils;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
 
+import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
 * @author Joseph Kapizza <joseph@rest4j.com>
 */
 public class MapApiTypeImpl extends ApiTypeImpl implements MapApiType, PatchableType {
-	ApiType elementType;
+	final ApiType elementType;
 	final StringApiType stringApiType;
 
 	MapApiTypeImpl(Marshaller marshaller, ApiType elementType) {
@@ -132,13 +135,40 @@ public class MapApiTypeImpl extends ApiTypeImpl implements MapApiType, Patchable
 		return object;
 	}
 
+	@Override
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		if (val == null) {
+			out.value(JSONObject.NULL);
+			return;
+		}
+		if (!(val instanceof Map)) {
+			throw new ApiException("Expected Map, "+val.getClass()+" given").setHttpStatus(500);
+		}
+		// null objects are marshalled to null, and JSONObject.put() drops such entries
+		boolean dropNulls = elementType instanceof ObjectApiType;
+		Map<String, Object> map = (Map<String, Object>) val;
+		int size = 0;
+		for (Object element: map.values()) {
+			if (element != null || !dropNulls) size++;
+		}
+		out.beginObject(size);
+		for (Map.Entry entry: map.entrySet()) {
+			if (entry.getValue() == null && dropNulls) continue;
+			try {
+				out.key((String)marshaller.marshal(stringApiType, entry.getKey()));
+				ApiTypeImpl.marshal(elementType, entry.getValue(), out);
+			} catch (JSONException e) {
+				throw new ApiException("Cannot create JSON object from "+val).setHttpStatus(500);
+			}
+		}
+		out.endObject();
+	}
+
 	@Override
 	public Object unmarshalPatch(Object original, JSONObject object) throws ApiException {
 		if (original == null) return null;
 
-		Object patched = Util.deepClone(original);
-
-		Map map = (Map)patched;
+		Map map = isCopyOnWrite() ? shallowCopy((Map)original) : (Map)Util.deepClone(original);
 
 		Iterator<String> keys = object.keys();
 		Map<String, Object> result = new HashMap<String, Object>(object.length());
@@ -171,7 +201,21 @@ public class MapApiTypeImpl extends ApiTypeImpl implements MapApiType, Patchable
 				}
 			}
 		}
-		return patched;
+		return map;
+	}
+
+	/**
+	 * Whether the patches share the unchanged values with the original map. Maps of objects follow the
+	 * patch mode of the element model; other maps are deep-cloned.
+	 */
+	private boolean isCopyOnWrite() {
+		return elementType instanceof ObjectApiTypeImpl && ((ObjectApiTypeImpl) elementType).copyOnWrite;
+	}
+
+	private static Map shallowCopy(Map map) {
+		if (map instanceof HashMap) return (Map) ((HashMap) map).clone(); // LinkedHashMap keeps its order
+		if (map instanceof TreeMap) return (Map) ((TreeMap) map).clone();
+		return new LinkedHashMap(map);
 	}
 
 	@Override
@@ -27,9 +27,12 @@ import com.rest4j.json.JSONObject;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 /**
@@ -37,6 +40,15 @@ import java.util.regex.Pattern;
  */
 public class MarshallerImpl implements Marshaller {
 	Map<String, ObjectApiTypeImpl> models = new HashMap<String, ObjectApiTypeImpl>();
+	// canonical type instances: the same type is always the same object
+	private final NumberApiTypeImpl numberType = new NumberApiTypeImpl(this);
+	private final BooleanApiTypeImpl booleanType = new BooleanApiTypeImpl(this);
+	private final DateApiTypeImpl dateType = new DateApiTypeImpl(this);
+	private final JsonObjectApiTypeImpl jsonObjectType = new JsonObjectApiTypeImpl(this);
+	private final StringApiTypeImpl stringType = new StringApiTypeImpl(this, null);
+	private final ConcurrentMap<List<String>, StringApiTypeImpl> enumTypes = new ConcurrentHashMap<List<String>, StringApiTypeImpl>();
+	private final ConcurrentMap<ApiType, ArrayApiTypeImpl> arrayTypes = new ConcurrentHashMap<ApiType, ArrayApiTypeImpl>();
+	private final ConcurrentMap<ApiType, MapApiTypeImpl> mapTypes = new ConcurrentHashMap<ApiType, MapApiTypeImpl>();
 	ObjectFactoryChain objectFactoryChain = new ObjectFactoryChain() {
 		@Nullable
 		@Override
@@ -59,6 +71,7 @@ public class MarshallerImpl implements Marshaller {
 
 	};
 	ServiceProvider serviceProvider;
+	boolean hasFieldFilters;
 	FieldFilterChain fieldFilterChain = new FieldFilterChain() {
 		@Override
 		public Object marshal(Object json, Object parentObject, ObjectApiType parentType, com.rest4j.type.Field field) {
@@ -154,37 +167,58 @@ public class MarshallerImpl implements Marshaller {
 
 	@Override
 	public ArrayApiTypeImpl getArrayType(ApiType type) {
-		return new ArrayApiTypeImpl(this, type);
+		ArrayApiTypeImpl arrayType = arrayTypes.get(type);
+		if (arrayType == null) {
+			ArrayApiTypeImpl newType = new ArrayApiTypeImpl(this, type);
+			arrayType = arrayTypes.putIfAbsent(type, newType);
+			if (arrayType == null) arrayType = newType;
+		}
+		return arrayType;
 	}
 
 	@Override
 	public MapApiTypeImpl getMapType(ApiType type) {
-		return new MapApiTypeImpl(this, type);
+		MapApiTypeImpl mapType = mapTypes.get(type);
+		if (mapType == null) {
+			MapApiTypeImpl newType = new MapApiTypeImpl(this, type);
+			mapType = mapTypes.putIfAbsent(type, newType);
+			if (mapType == null) mapType = newType;
+		}
+		return mapType;
 	}
 
 	@Override
 	public StringApiType getStringType(String[] values) {
-		return new StringApiTypeImpl(this, values);
+		if (values == null) return stringType;
+		values = values.clone();
+		List<String> key = Arrays.asList(values);
+		StringApiTypeImpl enumType = enumTypes.get(key);
+		if (enumType == null) {
+			StringApiTypeImpl newType = new StringApiTypeImpl(this, values);
+			enumType = enumTypes.putIfAbsent(key, newType);
+			if (enumType == null) enumType = newType;
+		}
+		return enumType;
 	}
 
 	@Override
 	public NumberApiType getNumberType() {
-		return new NumberApiTypeImpl(this);
+		return numberType;
 	}
 
 	@Override
 	public BooleanApiType getBooleanType() {
-		return new BooleanApiTypeImpl(this);
+		return booleanType;
 	}
 
 	@Override
 	public DateApiType getDateType() {
-		return new DateApiTypeImpl(this);
+		return dateType;
 	}
 
 	@Override
 	public JsonObjectApiType getJsonObjectType() {
-		return new JsonObjectApiTypeImpl(this);
+		return jsonObjectType;
 	}
 
 	@Override
@@ -291,6 +325,7 @@ public class MarshallerImpl implements Marshaller {
 	}
 
 	private void addFieldFilter(final FieldFilter ff) {
+		hasFieldFilters = true;
 		final FieldFilterChain nextChain = fieldFilterChain;
 		fieldFilterChain = new FieldFilterChain() {
 			@Override
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+
+import java.lang.reflect.Method;
+
+/**
+ * Calls a getter or setter of a bean (or of a custom field mapper) on behalf of
+ * a FieldMapping. Instances are obtained from {@link Invokers#forMethod}: normally
+ * a generated subclass that calls the method directly, or a reflective one when
+ * the method cannot be reached from generated code.
+ *
+ * <p>Only the overload that matches the method's parameter count is implemented;
+ * the target is ignored for static methods. Exceptions thrown by the method
+ * are propagated as is, without InvocationTargetException wrapping.</p>
+ *
+ * <p>This class is public only because generated subclasses are defined in their own class loader.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public abstract class MethodInvoker {
+	Method method;
+
+	protected MethodInvoker() {
+	}
+
+	public Object invoke(Object target) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
+	public Object invoke(Object target, Object arg) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
+	public Object invoke(Object target, Object arg1, Object arg2) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Reports a target or an argument of the wrong type (or a null for a primitive
+	 * argument) the same way for generated and reflective invokers.
+	 */
+	protected final ApiException cannotInvoke(RuntimeException e) {
+		return new ApiException("Cannot invoke "+method+" "+e.getMessage()).setHttpStatus(500);
+	}
+
+}
@@ -22,7 +22,6 @@ import com.rest4j.ConfigurationException;
 import com.rest4j.impl.model.Field;
 
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
@@ -32,6 +31,8 @@ public class NestedFieldMapping extends FieldMapping {
 	Method[] propGetters;
 	Class[] types;
 	Method[] propSetters;
+	MethodInvoker[] getters;
+	MethodInvoker[] setters;
 
 	NestedFieldMapping(MarshallerImpl marshaller, Field fld, String parent) throws ConfigurationException {
 		super(marshaller, fld, parent);
@@ -46,6 +47,8 @@ public class NestedFieldMapping extends FieldMapping {
 		propGetters = new Method[parts.length];
 		propSetters = new Method[parts.length];
 		types = new Class[parts.length];
+		getters = new MethodInvoker[parts.length];
+		setters = new MethodInvoker[parts.length];
 		int i = 0;
 		for (String part: parts) {
 			PropertyDescriptor descr = BeanInfo.getBeanInfo(clz).getPropertyDescription(part);
@@ -65,6 +68,8 @@ public class NestedFieldMapping extends FieldMapping {
 				}
 				propGetters[i] = descr.getReadMethod();
 				propSetters[i] = descr.getWriteMethod();
+				getters[i] = Invokers.forMethod(propGetters[i]);
+				if (propSetters[i] != null) setters[i] = Invokers.forMethod(propSetters[i]);
 			}
 			i++;
 		}
@@ -82,21 +87,29 @@ public class NestedFieldMapping extends FieldMapping {
 
 	@Override
 	public void set(Object inst, Object fieldVal) throws ApiException {
+		set(inst, fieldVal, false);
+	}
+
+	/**
+	 * Sets the field the copy-on-write way: every existing object on the property
+	 * path is shallow-copied and the copy is attached to its (already copied) parent,
+	 * so objects shared with the original are never changed.
+	 */
+	void setCopying(Object inst, Object fieldVal) throws ApiException {
+		set(inst, fieldVal, true);
+	}
+
+	private void set(Object inst, Object fieldVal, boolean copyParents) throws ApiException {
 		try {
-			Method setter = propSetters[propSetters.length - 1];
+			MethodInvoker setter = setters[setters.length - 1];
 			if (setter == null) {
 				// TODO: this should better be done at configuration time
 				throw new ApiException("No setter for "+name+" found").setHttpStatus(500);
 			}
-			for (int i = 0; i<propGetters.length-1; i++) {
-				Object newInst;
-				try {
-					newInst = propGetters[i].invoke(inst);
-				} catch (IllegalAccessException e) {
-					throw new ApiException("Cannot invoke "+propGetters[i]+" "+e.getMessage()).setHttpStatus(500);
-				}
+			for (int i = 0; i<getters.length-1; i++) {
+				Object newInst = getters[i].invoke(inst);
 				if (newInst == null) {
-					if (propSetters[i] == null) {
+					if (setters[i] == null) {
 						throw new ApiException("Cannot set "+name+" because the object "+types[i].getName()+
 								" does not exist and cannot be set.").setHttpStatus(500);
 					}
@@ -111,54 +124,54 @@ public class NestedFieldMapping extends FieldMapping {
 					}
 
 					// attach the child object to the parent
-					try {
-						propSetters[i].invoke(inst, newInst);
-					} catch (IllegalAccessException e) {
-						throw new ApiException("Cannot invoke "+propSetters[i]+" "+e.getMessage()).setHttpStatus(500);
-					}
+					setters[i].invoke(inst, newInst);
+				} else if (copyParents) {
+					newInst = Util.shallowClone(newInst);
+					setters[i].invoke(inst, newInst);
 				}
 				inst = newInst;
 			}
 			// set field value
-			try {
-				fieldVal = cast(fieldVal);
-				setter.invoke(inst, fieldVal);
-			} catch (IllegalAccessException e) {
-				throw new ApiException("Cannot invoke "+setter+" "+e.getMessage()).setHttpStatus(500);
-			}
+			fieldVal = cast(fieldVal);
+			setter.invoke(inst, fieldVal);
+
+		} catch (ApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot set "+name, e);
+		}
+	}
 
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof ApiException) {
-				throw (ApiException)e.getTargetException();
-			}
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
+	/**
+	 * Copy-on-write patches replace every object on the property path, so all of them
+	 * need a setter.
+	 */
+	void checkCopyOnWrite() throws ConfigurationException {
+		if (isReadonly() || setters[setters.length - 1] == null) return;
+		for (int i = 0; i<getters.length-1; i++) {
+			if (getters[i] != null && setters[i] == null) {
+				throw new ConfigurationException("Cannot use copy-on-write patches with " + parent + "." + name +
+						": no setter for " + getEffectivePropName().split("\\.")[i] + " in class " + propGetters[i].getDeclaringClass().getName());
 			}
-			throw new RuntimeException("Cannot set "+name, e.getTargetException());
-
 		}
 	}
 
 	@Override
 	public Object get(Object inst) throws ApiException {
 		try {
-			for (int i = 0; i<propGetters.length; i++) {
-				try {
-					inst = propGetters[i].invoke(inst);
-					if (inst == null) return null;
-				} catch (IllegalAccessException e) {
-					throw new ApiException("Cannot invoke "+propGetters[i]+" "+e.getMessage()).setHttpStatus(500);
-				}
+			for (int i = 0; i<getters.length; i++) {
+				inst = getters[i].invoke(inst);
+				if (inst == null) return null;
 			}
 			return inst;
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof ApiException) {
-				throw (ApiException)e.getTargetException();
-			}
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
-			}
-			throw new RuntimeException("Cannot get "+name, e.getTargetException());
+		} catch (ApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot get "+name, e);
 		}
 	}
 
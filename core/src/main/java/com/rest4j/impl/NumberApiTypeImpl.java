@@ -22,6 +22,7 @@ import com.rest4j.Marshaller;
 import com.rest4j.type.NumberApiType;
 import com.rest4j.json.JSONObject;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 
 /**
@@ -94,4 +95,13 @@ public class NumberApiTypeImpl extends SimpleApiTypeImpl implements NumberApiTyp
 		}
 		return val;
 	}
+
+	@Override
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		if (val instanceof Character) {
+			out.value((int)((Character)val).charValue());
+		} else {
+			out.value(marshal(val));
+		}
+	}
 }
@@ -20,13 +20,16 @@ package com.rest4j.impl;
 import com.rest4j.*;
 import com.rest4j.impl.model.Field;
 import com.rest4j.impl.model.Model;
+import com.rest4j.impl.model.PatchMode;
 import com.rest4j.type.ObjectApiType;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,13 +42,16 @@ public class ObjectApiTypeImpl extends ApiTypeImpl implements ObjectApiType, Pat
 	final MarshallerImpl marshaller;
 	final String name;
 	final Class clz;
-	// there could be several concrete subclasses corresponding to an abstract class
-	final ArrayList<ConcreteClassMapping> mappings = new ArrayList<ConcreteClassMapping>();
+	final ConcreteClassMapping mapping; // for clz itself
+	// there could be several concrete subclasses corresponding to an abstract class;
+	// the map is copied on write, so lookups need no locking
+	private volatile Map<Class, ConcreteClassMapping> mappings;
 	final ObjectFactoryChain factory;
 	final Object fieldMapper;
 	final ServiceProvider serviceProvider;
 	private Class instantiate;
 	final FieldFilterChain fieldFilter;
+	final boolean copyOnWrite; // patches copy only the objects they change
 
 	ObjectApiTypeImpl(MarshallerImpl marshaller, String name, Class clz, Model model, Object fieldMapper, ObjectFactoryChain factory, FieldFilterChain fieldFilter, ServiceProvider serviceProvider) throws ConfigurationException {
 		super(marshaller);
@@ -55,9 +61,13 @@ public class ObjectApiTypeImpl extends ApiTypeImpl implements ObjectApiType, Pat
 		this.clz = clz;
 		this.model = model;
 		this.fieldMapper = fieldMapper;
-		mappings.add(new ConcreteClassMapping(marshaller, clz, model, fieldMapper, serviceProvider, this));
+		mapping = new ConcreteClassMapping(marshaller, clz, model, fieldMapper, serviceProvider, this);
+		Map<Class, ConcreteClassMapping> initial = new IdentityHashMap<Class, ConcreteClassMapping>();
+		initial.put(clz, mapping);
+		mappings = initial;
 		this.factory = factory;
 		this.fieldFilter = fieldFilter;
+		copyOnWrite = model.getPatch() == PatchMode.COPY_ON_WRITE;
 	}
 
 	@Override
@@ -117,11 +127,24 @@ public class ObjectApiTypeImpl extends ApiTypeImpl implements ObjectApiType, Pat
 		return json;
 	}
 
+	@Override
+	void marshal(Object val, JSONOutput out) throws ApiException, IOException {
+		if (val == null) {
+			out.value(null);
+			return;
+		}
+		if (!clz.isAssignableFrom(val.getClass())) {
+			throw new ApiException("Unexpected value "+val+" where "+clz+" was expected").setHttpStatus(500);
+		}
+		getMapping(val.getClass()).marshal(val, out);
+	}
+
 	@Override
 	public Object unmarshalPatch(Object original, JSONObject object) throws ApiException {
 		if (original == null) return null;
 
-		Object patched = Util.deepClone(original);
+		// with copy-on-write, the nested objects are copied by their own patches, if any
+		Object patched = copyOnWrite ? Util.shallowClone(original) : Util.deepClone(original);
 
 		getMapping(original.getClass()).unmarshalPatch(object, patched);
 
@@ -149,30 +172,34 @@ public class ObjectApiTypeImpl extends ApiTypeImpl implements ObjectApiType, Pat
 		return clz;
 	}
 
+	/**
+	 * Finds the mapping for the runtime class of an object. Mappings for the subclasses are created
+	 * and linked when the subclass is seen for the first time.
+	 */
 	ConcreteClassMapping getMapping(Class clz) throws ApiException {
-		for (ConcreteClassMapping ccm: mappings) {
-			if (ccm.clz == clz) return ccm;
-		}
+		if (clz == this.clz) return mapping;
+		ConcreteClassMapping ccm = mappings.get(clz);
+		if (ccm != null) return ccm;
 		synchronized(this) {
-			for (ConcreteClassMapping ccm: mappings) {
-				if (ccm.clz == clz) return ccm;
-			}
+			ccm = mappings.get(clz);
+			if (ccm != null) return ccm;
 
 			try {
-				ConcreteClassMapping ccm = new ConcreteClassMapping(marshaller, clz, model, fieldMapper, serviceProvider, this);
+				ccm = new ConcreteClassMapping(marshaller, clz, model, fieldMapper, serviceProvider, this);
 				ccm.link();
-				mappings.add(ccm);
-				return ccm;
 			} catch (ConfigurationException e) {
 				log.log(Level.SEVERE, "Cannot map class "+clz, e);
 				throw new ApiException("Internal error: "+e.getMessage()).setHttpStatus(500);
 			}
-
+			Map<Class, ConcreteClassMapping> copy = new IdentityHashMap<Class, ConcreteClassMapping>(mappings);
+			copy.put(clz, ccm);
+			mappings = copy;
+			return ccm;
 		}
 	}
 
 	void link() throws ConfigurationException {
-		for (ConcreteClassMapping ccm: mappings) {
+		for (ConcreteClassMapping ccm: mappings.values()) {
 			ccm.link();
 		}
 	}
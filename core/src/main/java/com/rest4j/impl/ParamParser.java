@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import com.rest4j.impl.model.Parameter;
+import com.rest4j.impl.model.Value;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An endpoint Parameter compiled for parsing the string values of the query/path parameter.
+ * Created once per endpoint by {@link APIImpl.EndpointMapping}.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+abstract class ParamParser {
+	private static final Map<String, Boolean> BOOLEANS = new HashMap<String, Boolean>();
+	static {
+		for (String value: new String[] {"true", "yes", "on", "1"}) BOOLEANS.put(value, Boolean.TRUE);
+		for (String value: new String[] {"false", "no", "off", "0"}) BOOLEANS.put(value, Boolean.FALSE);
+	}
+	// the powers of ten that are exact doubles
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	final String name;
+	final boolean optional;
+	final boolean httpsonly;
+	private final String defaultString;
+	private Object defaultValue; // parsed defaultString
+	private boolean defaultParsed;
+
+	ParamParser(Parameter param) {
+		name = param.getName();
+		optional = param.isOptional();
+		httpsonly = param.isHttpsonly();
+		defaultString = param.getDefault();
+	}
+
+	static ParamParser create(Parameter param) {
+		ParamParser parser;
+		switch (param.getType()) {
+			case BOOLEAN: parser = new BooleanParser(param); break;
+			case NUMBER: parser = new NumberParser(param); break;
+			case STRING: parser = new StringParser(param); break;
+			default: throw new AssertionError();
+		}
+		if (parser.defaultString != null) {
+			try {
+				parser.defaultValue = parser.parseValue(parser.defaultString);
+				parser.defaultParsed = true;
+			} catch (ApiException e) {
+				// a bad default is reported when it gets used
+			}
+		}
+		return parser;
+	}
+
+	/**
+	 * @param valueStr The parameter string, or null if the parameter is absent.
+	 * @return Boolean, Long, Double or String; or null when an optional parameter has no default.
+	 */
+	Object parse(String valueStr) throws ApiException {
+		if (valueStr == null) {
+			if (!optional) {
+				throw new ApiException("Absent parameter "+name);
+			}
+			if (defaultParsed) return defaultValue;
+			if (defaultString == null) return null;
+			valueStr = defaultString;
+		}
+		return parseValue(valueStr);
+	}
+
+	abstract Object parseValue(String valueStr) throws ApiException;
+
+	static class BooleanParser extends ParamParser {
+		BooleanParser(Parameter param) {
+			super(param);
+		}
+
+		@Override
+		Object parseValue(String valueStr) throws ApiException {
+			Boolean value = BOOLEANS.get(valueStr);
+			if (value == null) {
+				throw new ApiException("Wrong parameter '"+name+"' value: expected one of 'true', 'false', 'yes', 'no', 'on', 'off', '1', '0'");
+			}
+			return value;
+		}
+	}
+
+	static class NumberParser extends ParamParser {
+		NumberParser(Parameter param) {
+			super(param);
+		}
+
+		/**
+		 * Scans plain integers and decimals by hand. Whatever does not fit the fast path (exponents,
+		 * more than 15 digits, Unicode digits etc.) goes to Long.parseLong or Double.parseDouble, so
+		 * the results are exactly what they return: a Long if there is no '.', 'e' or 'E' in the
+		 * string, otherwise a Double.
+		 */
+		@Override
+		Object parseValue(String valueStr) throws ApiException {
+			valueStr = valueStr.trim();
+			int len = valueStr.length();
+			int i = 0;
+			boolean negative = false, plus = false;
+			if (len > 0 && (valueStr.charAt(0) == '-' || valueStr.charAt(0) == '+')) {
+				negative = valueStr.charAt(0) == '-';
+				plus = !negative;
+				i++;
+			}
+			long mantissa = 0;
+			int digits = 0;
+			int point = -1; // the number of digits before '.'
+			for (; i < len; i++) {
+				char c = valueStr.charAt(i);
+				if (c >= '0' && c <= '9') {
+					mantissa = mantissa * 10 + c - '0';
+					if (++digits > 15) break;
+				} else if (c == '.' && point < 0) {
+					point = digits;
+				} else {
+					break;
+				}
+			}
+			if (i == len && digits > 0) {
+				if (point >= 0) {
+					// both the mantissa and the power of ten are exact, so the division is correctly rounded
+					double value = mantissa / POWERS_OF_TEN[digits - point];
+					return negative ? -value : value;
+				}
+				if (!plus) { // Long.parseLong("+1") fails before Java 7
+					return negative ? -mantissa : mantissa;
+				}
+			}
+			try {
+				if (valueStr.indexOf('.') >= 0 || valueStr.indexOf('e') >= 0 || valueStr.indexOf('E') >= 0) {
+					return Double.parseDouble(valueStr);
+				} else {
+					return Long.parseLong(valueStr);
+				}
+			} catch (NumberFormatException ex) {
+				throw new ApiException("Wrong numeric parameter '"+name+"' value: not a number or a number out of range");
+			}
+		}
+	}
+
+	static class StringParser extends ParamParser {
+		private final Set<String> values; // allowed values, or null if any value is OK
+		private final String valuesError;
+
+		StringParser(Parameter param) {
+			super(param);
+			if (param.getValues() != null) {
+				List<Value> list = param.getValues().getValue();
+				values = new HashSet<String>();
+				StringBuilder expected = new StringBuilder();
+				for (Value v: list) {
+					values.add(v.getContent());
+					if (expected.length() > 0) expected.append(", ");
+					expected.append(v.getContent());
+				}
+				valuesError = "Wrong parameter '"+name+"' value: expected one of "+expected;
+			} else {
+				values = null;
+				valuesError = null;
+			}
+		}
+
+		@Override
+		Object parseValue(String valueStr) throws ApiException {
+			if (values != null && !values.contains(valueStr)) {
+				throw new ApiException(valuesError);
+			}
+			return valueStr;
+		}
+	}
+}
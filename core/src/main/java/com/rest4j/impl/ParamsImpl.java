@@ -17,12 +17,36 @@
 
 package com.rest4j.impl;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 /**
+ * The parsed query/path parameters of a request. The values are kept in an array indexed by
+ * the position of the parameter in the endpoint declaration; the name to position map is
+ * shared by all the requests to the endpoint. As a Map, it has an entry for every declared
+ * parameter, null if the parameter is missing; only the values of the entries can be changed.
+ *
  * @author Joseph Kapizza <joseph@rest4j.com>
  */
-public class ParamsImpl extends HashMap<String, Object> implements Params {
+public class ParamsImpl extends AbstractMap<String, Object> implements Params {
+	private final Map<String, Integer> slots;
+	private final Object[] values;
+
+	ParamsImpl(Map<String, Integer> slots, int size) {
+		this.slots = slots;
+		this.values = new Object[size];
+	}
+
+	void set(int slot, Object value) {
+		values[slot] = value;
+	}
+
+	Object get(int slot) {
+		return values[slot];
+	}
 
 	@Override
 	public String getString(String paramName) {
@@ -46,6 +70,78 @@ public class ParamsImpl extends HashMap<String, Object> implements Params {
 
 	@Override
 	public Object get(String name) {
-		return super.get(name);
+		return get((Object) name);
+	}
+
+	@Override
+	public Object get(Object key) {
+		Integer slot = slots.get(key);
+		return slot == null ? null : values[slot];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return slots.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return slots.size();
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		Integer slot = slots.get(key);
+		if (slot == null) throw new UnsupportedOperationException("Not a parameter of the endpoint: " + key);
+		Object old = values[slot];
+		values[slot] = value;
+		return old;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				final Iterator<Entry<String, Integer>> slotIterator = slots.entrySet().iterator();
+				return new Iterator<Entry<String, Object>>() {
+					@Override
+					public boolean hasNext() {
+						return slotIterator.hasNext();
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						Entry<String, Integer> slot = slotIterator.next();
+						return new SlotEntry(slot.getKey(), slot.getValue());
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return slots.size();
+			}
+		};
+	}
+
+	private class SlotEntry extends SimpleEntry<String, Object> {
+		private final int slot;
+
+		SlotEntry(String name, int slot) {
+			super(name, values[slot]);
+			this.slot = slot;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			values[slot] = value;
+			return super.setValue(value);
+		}
 	}
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+/**
+ * The measurements of a single request, passed to {@link com.rest4j.MetricsSink}. Times are in
+ * nanoseconds. When the request involves several service calls (e.g. GET before PATCH or
+ * If-Match), the times of the same phase are added up.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class RequestMetrics {
+	public enum Phase {
+		/** Finding the endpoint by path and HTTP method. */
+		ROUTING,
+		/** Parsing querystring and path parameters. */
+		PARAMETERS,
+		/** The PermissionChecker call. */
+		PERMISSIONS,
+		/** Parsing and unmarshalling the request body and preparing the other method arguments. */
+		BODY,
+		/** The service method call. */
+		SERVICE,
+		/** Creating the response resource; for JSON, marshalling the result and computing the ETag. */
+		MARSHALLING,
+		/** Serializing, compressing and sending the response body. */
+		OUTPUT
+	}
+
+	static final Phase[] PHASES = Phase.values();
+
+	private final long startNanos;
+	private long endNanos;
+	private long lapStart;
+	private final long[] nanos = new long[PHASES.length];
+	String endpoint;
+	int status;
+	long bytesIn;
+	long bytesOut;
+
+	RequestMetrics(long bytesIn) {
+		this.startNanos = lapStart = System.nanoTime();
+		this.bytesIn = bytesIn;
+	}
+
+	/**
+	 * Adds the time since the previous lap to the phase.
+	 */
+	void lap(Phase phase) {
+		long now = System.nanoTime();
+		nanos[phase.ordinal()] += now - lapStart;
+		lapStart = now;
+	}
+
+	/**
+	 * Starts the next lap now, so that the time spent outside of rest4j is not counted.
+	 */
+	void startLap() {
+		lapStart = System.nanoTime();
+	}
+
+	void finish() {
+		endNanos = System.nanoTime();
+	}
+
+	/**
+	 * The endpoint as "METHOD /route/{param}", or null if no endpoint matched the request.
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * The HTTP status code of the response.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * The request Content-Length, 0 if unknown.
+	 */
+	public long getBytesIn() {
+		return bytesIn;
+	}
+
+	/**
+	 * The number of response body bytes sent to the client, after compression.
+	 */
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	public long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	/**
+	 * The time from the start of {@link com.rest4j.API#serve} to the end of the response output.
+	 */
+	public long getTotalNanos() {
+		return endNanos - startNanos;
+	}
+}
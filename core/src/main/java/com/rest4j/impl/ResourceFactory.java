@@ -18,8 +18,11 @@
 package com.rest4j.impl;
 
 import com.rest4j.*;
+import com.rest4j.impl.model.APIParams;
 import com.rest4j.impl.model.ContentType;
+import com.rest4j.impl.model.ETagMode;
 import com.rest4j.type.ApiType;
+import com.rest4j.type.ArrayApiType;
 import com.rest4j.type.ObjectApiType;
 
 import java.io.InputStream;
@@ -27,15 +30,27 @@ import java.io.Reader;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Joseph Kapizza <joseph@rest4j.com>
  */
 public class ResourceFactory {
 	Marshaller marshaller;
+	APIParams params;
 
 	public ResourceFactory(Marshaller marshaller) {
+		this(marshaller, new APIParams());
+	}
+
+	public ResourceFactory(Marshaller marshaller, APIParams params) {
 		this.marshaller = marshaller;
+		this.params = params;
 	}
 
 	public void checkContentType(ContentType contentType, Method method) throws ConfigurationException {
@@ -49,6 +64,16 @@ public class ResourceFactory {
 		if (returnClass != null && Resource.class.isAssignableFrom(returnClass)) return;
 		if (contentType.getJson() != null) {
 			ApiType apiType = getApiType(contentType);
+			if (apiType instanceof ArrayApiType && returnClass != null && (Iterator.class.isAssignableFrom(returnClass)
+					|| Iterable.class.isAssignableFrom(returnClass) && !Collection.class.isAssignableFrom(returnClass))) {
+				// the elements are streamed, see StreamingArrayResource.isStreamed
+				ApiType elementType = ((ArrayApiType) apiType).getElementType();
+				Type elementJavaType = typeArgument(returnType, Iterator.class.isAssignableFrom(returnClass) ? Iterator.class : Iterable.class);
+				if (elementJavaType == null || !elementType.check(elementJavaType)) {
+					throw new ConfigurationException("Wrong return type of "+method+". Expected an Iterator or Iterable of "+elementType.getJavaName());
+				}
+				return;
+			}
 			if (!apiType.check(returnType)) {
 				apiType.check(returnType);
 				throw new ConfigurationException("Wrong return type of "+method+". Expected "+apiType.getJavaName()+" or "+Resource.class.getName());
@@ -68,6 +93,34 @@ public class ResourceFactory {
 		throw new AssertionError();
 	}
 
+	/**
+	 * The type argument of a one-parameter generic interface (e.g. Iterator) as implemented
+	 * by the given type, or null if it cannot be resolved, e.g. for a raw type.
+	 */
+	static Type typeArgument(Type type, Class generic) {
+		Class raw = type instanceof Class ? (Class) type
+				: type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() instanceof Class ? (Class) ((ParameterizedType) type).getRawType()
+				: null;
+		if (raw == null || !generic.isAssignableFrom(raw)) return null;
+		if (raw == generic) {
+			return type instanceof ParameterizedType ? ((ParameterizedType) type).getActualTypeArguments()[0] : null;
+		}
+		List<Type> supertypes = new ArrayList<Type>(Arrays.asList(raw.getGenericInterfaces()));
+		if (raw.getGenericSuperclass() != null) supertypes.add(raw.getGenericSuperclass());
+		for (Type supertype: supertypes) {
+			Type arg = typeArgument(supertype, generic);
+			if (arg instanceof TypeVariable && type instanceof ParameterizedType) {
+				// declared by this class, e.g. class Cursor<T> implements Iterator<T>
+				TypeVariable[] vars = raw.getTypeParameters();
+				for (int i = 0; i < vars.length; i++) {
+					if (vars[i].equals(arg)) return ((ParameterizedType) type).getActualTypeArguments()[i];
+				}
+			}
+			if (arg != null) return arg;
+		}
+		return null;
+	}
+
 	ApiType getApiType(ContentType contentType) {
 		ApiType apiType;
 		switch (contentType.getJson().getCollection()) {
@@ -86,6 +139,24 @@ public class ResourceFactory {
 	}
 
 	public Resource createResourceFrom(Object content, ContentType contentType) throws ApiException {
+		if (content instanceof Resource) return (Resource)content;
+		if (contentType == null) return null; // no body expected
+		return createResourceFrom(content, contentType, contentType.getJson() == null ? null : getApiType(contentType));
+	}
+
+	/**
+	 * @param apiType The type of a JSON content, as returned by {@link #getApiType(ContentType)}. The callers
+	 *                resolve it once at configuration time.
+	 */
+	Resource createResourceFrom(Object content, ContentType contentType, ApiType apiType) throws ApiException {
+		return createResourceFrom(content, contentType, apiType, null);
+	}
+
+	/**
+	 * @param etag The ETag of the resource if it is known in advance, e.g. from a {@link com.rest4j.VersionResolver};
+	 *             spares hashing the response. The caller is responsible for sending it instead of {@link Resource#getETag()}.
+	 */
+	Resource createResourceFrom(Object content, ContentType contentType, ApiType apiType, String etag) throws ApiException {
 		if (content instanceof Resource) return (Resource)content;
 		if (contentType == null) return null; // no body expected
 		if (contentType.getJson() != null) {
@@ -93,11 +164,22 @@ public class ResourceFactory {
 				if (contentType.getJson().isOptional()) return null;
 				throw new ApiException("no response").setHttpStatus(500);
 			}
-			ApiType apiType = getApiType(contentType);
 			ApiType concreteType = apiType;
 			if (apiType instanceof ObjectApiType) {
 				concreteType = ((ObjectApiType)apiType).getSubtype(content.getClass());
 			}
+			if (apiType instanceof ArrayApiTypeImpl && StreamingArrayResource.isStreamed(content)) {
+				boolean filtered = !(marshaller instanceof MarshallerImpl) || ((MarshallerImpl) marshaller).hasFieldFilters;
+				return new StreamingArrayResource((ArrayApiTypeImpl) apiType, content, filtered);
+			}
+			if (marshaller instanceof MarshallerImpl && !((MarshallerImpl) marshaller).hasFieldFilters) {
+				// field filters work on JSON trees, so only an unfiltered marshaller can stream
+				if (etag == null && params.getEtagMode() != ETagMode.DIGEST) {
+					// hashed while it is written, or via the tree if the ETag is needed first; never two passes
+					return new StreamingJSONResource(marshaller, apiType, content, concreteType);
+				}
+				return new StreamingJSONResource(marshaller, apiType, content, concreteType, etag);
+			}
 			return new JSONResource(marshaller.marshal(apiType, content), concreteType);
 		} else if (contentType.getBinary() != null) {
 			if (content instanceof InputStream) {
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.Header;
+import com.rest4j.JSONResource;
+import com.rest4j.Resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized responses of a GET endpoint declared with the &lt;cache> tag. An entry keeps the
+ * response bytes, their gzipped version and the ETag, so a cache hit is served without calling
+ * the service, marshalling or compressing anything.
+ *
+ * Entries expire after a fixed TTL. Both the number of entries and their total size in bytes
+ * are bounded; when the cache is full, the least recently used entries are only replaced if the
+ * new key has been requested more often recently (TinyLFU admission), so that a burst of one-off
+ * requests does not flush popular responses.
+ *
+ * A response produced while its path was invalidated is not stored: the caller takes
+ * {@link #generation(String)} before calling the service and passes it to {@link #store}.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class ResponseCache {
+	final long ttl; // nanoseconds
+	final int maxEntries;
+	final long maxBytes;
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private final FrequencySketch sketch;
+	// invalidation counters, one per group of paths
+	private final long[] generations = new long[64];
+	private long bytes;
+
+	ResponseCache(long ttlMillis, int maxEntries, long maxBytes) {
+		this.ttl = ttlMillis * 1000000L;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.sketch = new FrequencySketch(maxEntries);
+	}
+
+	long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Finds a live entry. Every lookup, hit or miss, counts as a use of the key for admission.
+	 */
+	synchronized Entry get(Key key) {
+		sketch.increment(key.hashCode());
+		Entry entry = entries.get(key);
+		if (entry == null) return null;
+		if (now() - entry.created >= ttl) {
+			entries.remove(key);
+			bytes -= entry.size();
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * The invalidation counter of the path; it changes every time the path is invalidated.
+	 */
+	synchronized long generation(String path) {
+		return generations[stripe(path)];
+	}
+
+	/**
+	 * Serializes the resource and caches the result under the given key.
+	 *
+	 * @param generation The {@link #generation(String)} of the key path, taken before the resource was produced.
+	 * @param etag The ETag to send with the cached response; null to use the digest of a JSON body.
+	 * @return The entry that should be sent instead of the resource, whether or not it was admitted.
+	 */
+	Entry store(Key key, long generation, Resource resource, String etag, boolean prettify, int compressionThreshold, int compressionLevel) throws IOException {
+		if (resource instanceof JSONResource) {
+			((JSONResource) resource).setPrettify(prettify);
+		}
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		if (etag == null && ETagDigest.isApplicable(resource)) {
+			if (prettify) {
+				etag = ETagDigest.of(resource);
+				resource.write(body);
+			} else {
+				ETagDigest digest = new ETagDigest(body);
+				resource.write(digest);
+				etag = digest.getETag();
+			}
+		} else {
+			resource.write(body);
+		}
+		byte[] gzipped = null;
+		if (body.size() >= compressionThreshold) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			GZIPOutputStream gzipOutputStream = CompressingOutputStream.gzip(compressed, compressionLevel);
+			body.writeTo(gzipOutputStream);
+			gzipOutputStream.close();
+			gzipped = compressed.toByteArray();
+		}
+		Entry entry = new Entry(resource, etag, body.toByteArray(), gzipped, now());
+		put(key, generation, entry);
+		return entry;
+	}
+
+	synchronized void put(Key key, long generation, Entry entry) {
+		if (generations[stripe(key.path)] != generation) return; // might be stale already
+		long size = entry.size();
+		if (size > maxBytes) return;
+		Entry old = entries.remove(key);
+		if (old != null) bytes -= old.size();
+
+		// pick the least recently used entries to make room; a new key must be requested more often than any of them
+		ArrayList<Key> victims = new ArrayList<Key>();
+		long freed = 0;
+		Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+		while (entries.size() - victims.size() >= maxEntries || bytes - freed + size > maxBytes) {
+			Map.Entry<Key, Entry> victim = eldest.next();
+			if (old == null && now() - victim.getValue().created < ttl
+					&& sketch.frequency(key.hashCode()) <= sketch.frequency(victim.getKey().hashCode())) {
+				return;
+			}
+			victims.add(victim.getKey());
+			freed += victim.getValue().size();
+		}
+		for (Key victim: victims) entries.remove(victim);
+		bytes -= freed;
+		entries.put(key, entry);
+		bytes += size;
+	}
+
+	/**
+	 * Drops all the responses cached for the given path, whatever their parameters and headers.
+	 */
+	synchronized void invalidate(String path) {
+		generations[stripe(path)]++;
+		for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<Key, Entry> entry = it.next();
+			if (entry.getKey().path.equals(path)) {
+				bytes -= entry.getValue().size();
+				it.remove();
+			}
+		}
+	}
+
+	synchronized void clear() {
+		for (int i = 0; i < generations.length; i++) generations[i]++;
+		entries.clear();
+		bytes = 0;
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	synchronized long bytes() {
+		return bytes;
+	}
+
+	private int stripe(String path) {
+		return path.hashCode() & (generations.length - 1);
+	}
+
+	/**
+	 * The request path plus everything else the response depends on: the querystring parameters,
+	 * the vary headers and the prettify flag, encoded in a single string.
+	 */
+	static class Key {
+		final String path;
+		final String variant;
+		private final int hash;
+
+		Key(String path, String variant) {
+			this.path = path;
+			this.variant = variant;
+			this.hash = path.hashCode() * 31 + variant.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key key = (Key) o;
+			return hash == key.hash && path.equals(key.path) && variant.equals(key.variant);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * A cached response. The ApiResponseImpl sends its bytes as they are.
+	 */
+	static class Entry extends ResourceBase {
+		final byte[] body;
+		final byte[] gzipped; // null when the body is shorter than the compression threshold
+		final String etag;
+		final long created;
+
+		Entry(Resource resource, String etag, byte[] body, byte[] gzipped, long created) {
+			super(resource.getContentType());
+			this.body = body;
+			this.gzipped = gzipped;
+			this.etag = etag;
+			this.created = created;
+			if (resource.headers() != null) {
+				for (Header header: resource.headers()) addHeader(header.getName(), header.getValue());
+			}
+		}
+
+		long size() {
+			return body.length + (gzipped == null ? 0 : gzipped.length);
+		}
+
+		@Override
+		public String getETag() {
+			return etag;
+		}
+
+		@Override
+		public void write(OutputStream os) throws IOException {
+			os.write(body);
+		}
+
+		@Override
+		public void writeJSONP(OutputStream os, String callbackFunctionName) throws IOException {
+			os.write((callbackFunctionName+"(").getBytes("UTF-8"));
+			write(os);
+			os.write(')');
+		}
+	}
+
+	/**
+	 * A count-min sketch of key frequencies with 4-bit counters. After every 10 * maxEntries
+	 * increments all counters are halved, so the frequencies reflect the recent requests only.
+	 */
+	static class FrequencySketch {
+		private static final int[] SEEDS = {0x97cb3127, 0xb50b9d25, 0xc2b2ae35, 0x27d4eb2f};
+		private final byte[] counters;
+		private final int mask;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(int maxEntries) {
+			int size = 16;
+			while (size < maxEntries * 4 && size < (1 << 24)) size <<= 1;
+			counters = new byte[size];
+			mask = size - 1;
+			sampleSize = Math.max(10 * maxEntries, 10);
+		}
+
+		void increment(int hash) {
+			for (int seed: SEEDS) {
+				int i = index(hash, seed);
+				if (counters[i] < 15) counters[i]++;
+			}
+			if (++additions >= sampleSize) {
+				for (int i = 0; i < counters.length; i++) counters[i] >>= 1;
+				additions >>= 1;
+			}
+		}
+
+		int frequency(int hash) {
+			int frequency = 15;
+			for (int seed: SEEDS) {
+				frequency = Math.min(frequency, counters[index(hash, seed)]);
+			}
+			return frequency;
+		}
+
+		private int index(int hash, int seed) {
+			int h = (hash ^ seed) * seed;
+			h ^= h >>> 15;
+			return h & mask;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import java.util.Map;
+
+/**
+ * The result of routing a request: the chosen endpoint, the request path without the API
+ * path prefix, and the URL-decoded path parameters captured while matching the route.
+ * Obtained once per request and passed along to the endpoint invocation, so the path is never
+ * matched or decoded twice.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class RouteMatch<T> {
+	final T target;
+	final String path;
+	final Map<String, String> params;
+
+	RouteMatch(T target, String path, Map<String, String> params) {
+		this.target = target;
+		this.path = path;
+		this.params = params;
+	}
+
+	public T getTarget() {
+		return target;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public Map<String, String> getParams() {
+		return params;
+	}
+}
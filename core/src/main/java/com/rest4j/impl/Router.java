@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.impl.model.StringWithParams;
+
+import javax.xml.bind.JAXBElement;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatches request paths to endpoints. Routes are compiled once into a trie keyed on '/'-separated
+ * path segments, so the lookup cost depends on the path length rather than on the number of endpoints.
+ * A segment that consists of a single &lt;param> is a wildcard node; a segment mixing text and
+ * parameters (like <code>x&lt;param>id&lt;/param>.json</code>) is matched with its own small regex.
+ * <p/>
+ * Each node keeps an HTTP method table of the routes ending there, so that 404 and 405 are decided
+ * in the same pass. When several routes match the same path and method, the one added first wins,
+ * exactly like the linear scan over {@link StringWithParamsMatcher}s did.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+class Router<T> {
+	final Node<T> root = new Node<T>();
+	int size;
+	int maxParams;
+
+	void add(StringWithParams route, String httpMethod, T target) {
+		Node<T> node = root;
+		List<String> params = new ArrayList<String>();
+		for (Segment segment: segments(route)) {
+			node = node.child(segment);
+			params.addAll(segment.params);
+		}
+		maxParams = Math.max(maxParams, params.size());
+		node.add(new Route<T>(size++, httpMethod, params.toArray(new String[params.size()]), target));
+	}
+
+	/**
+	 * Find all the routes matching the given path (without the API path prefix).
+	 * The result is never null; use {@link Match#isEmpty()} to check for 404.
+	 */
+	Match<T> match(String path) {
+		Match<T> match = new Match<T>(path);
+		match(root, path, 0, new int[maxParams * 2], 0, match);
+		return match;
+	}
+
+	/**
+	 * @param offsets Start and end offsets of the parameter values captured so far
+	 * @param count The number of captured parameters
+	 */
+	private void match(Node<T> node, String path, int start, int[] offsets, int count, Match<T> match) {
+		int end = path.indexOf('/', start);
+		if (end < 0) end = path.length();
+		if (node.literals != null) {
+			Node<T> child = node.literals.get(path.substring(start, end));
+			if (child != null) descend(child, path, end, offsets, count, match);
+		}
+		if (node.wildcard != null) {
+			offsets[count * 2] = start;
+			offsets[count * 2 + 1] = end;
+			descend(node.wildcard, path, end, offsets, count + 1, match);
+		}
+		if (node.patterns != null) {
+			for (PatternChild<T> child: node.patterns.values()) {
+				Matcher matcher = child.pattern.matcher(path);
+				matcher.region(start, end);
+				if (!matcher.matches()) continue;
+				int groups = matcher.groupCount();
+				for (int i = 0; i < groups; i++) {
+					offsets[(count + i) * 2] = matcher.start(i + 1);
+					offsets[(count + i) * 2 + 1] = matcher.end(i + 1);
+				}
+				descend(child.node, path, end, offsets, count + groups, match);
+			}
+		}
+	}
+
+	private void descend(Node<T> child, String path, int end, int[] offsets, int count, Match<T> match) {
+		if (end == path.length()) {
+			if (child.routes != null) match.add(child, Arrays.copyOf(offsets, count * 2));
+		} else {
+			match(child, path, end + 1, offsets, count, match);
+		}
+	}
+	/**
+	 * Splits the route template into path segments.
+	 */
+	static List<Segment> segments(StringWithParams route) {
+		List<Segment> segments = new ArrayList<Segment>();
+		Segment current = new Segment();
+		for (Object part: route.getContent()) {
+			if (part instanceof String) {
+				String text = (String) part;
+				int start = 0, slash;
+				while ((slash = text.indexOf('/', start)) >= 0) {
+					current.addText(text.substring(start, slash));
+					segments.add(current);
+					current = new Segment();
+					start = slash + 1;
+				}
+				current.addText(text.substring(start));
+			} else if (part instanceof JAXBElement) {
+				current.addParam(((JAXBElement) part).getValue().toString());
+			}
+		}
+		segments.add(current);
+		return segments;
+	}
+
+	static class Segment {
+		final StringBuilder text = new StringBuilder();
+		final StringBuilder regex = new StringBuilder();
+		final List<String> params = new ArrayList<String>();
+
+		void addText(String str) {
+			if (str.length() == 0) return;
+			text.append(str);
+			regex.append(Pattern.quote(str));
+		}
+
+		void addParam(String name) {
+			params.add(name);
+			regex.append("([^/]*)");
+		}
+
+		boolean isLiteral() {
+			return params.isEmpty();
+		}
+
+		boolean isWildcard() {
+			return params.size() == 1 && text.length() == 0;
+		}
+	}
+
+	static class Route<T> {
+		final int order;
+		final String httpMethod;
+		final String[] params;
+		final T target;
+
+		Route(int order, String httpMethod, String[] params, T target) {
+			this.order = order;
+			this.httpMethod = httpMethod;
+			this.params = params;
+			this.target = target;
+		}
+	}
+
+	static class PatternChild<T> {
+		final Pattern pattern;
+		final Node<T> node = new Node<T>();
+
+		PatternChild(String regex) {
+			pattern = Pattern.compile(regex);
+		}
+	}
+
+	static class Node<T> {
+		Map<String, Node<T>> literals;
+		Node<T> wildcard;
+		Map<String, PatternChild<T>> patterns;
+		// routes ending at this node in the order they were added, and the first route per HTTP method
+		List<Route<T>> routes;
+		Map<String, Route<T>> methods;
+
+		Node<T> child(Segment segment) {
+			if (segment.isLiteral()) {
+				if (literals == null) literals = new HashMap<String, Node<T>>();
+				String key = segment.text.toString();
+				Node<T> child = literals.get(key);
+				if (child == null) literals.put(key, child = new Node<T>());
+				return child;
+			} else if (segment.isWildcard()) {
+				if (wildcard == null) wildcard = new Node<T>();
+				return wildcard;
+			} else {
+				if (patterns == null) patterns = new LinkedHashMap<String, PatternChild<T>>();
+				String key = segment.regex.toString();
+				PatternChild<T> child = patterns.get(key);
+				if (child == null) patterns.put(key, child = new PatternChild<T>(key));
+				return child.node;
+			}
+		}
+
+		void add(Route<T> route) {
+			if (routes == null) {
+				routes = new ArrayList<Route<T>>();
+				methods = new HashMap<String, Route<T>>();
+			}
+			routes.add(route);
+			if (!methods.containsKey(route.httpMethod)) methods.put(route.httpMethod, route);
+		}
+	}
+
+	/**
+	 * The result of a path lookup: the trie nodes whose routes match the path, along with
+	 * the offsets of the parameter values in the path. There is usually only one such node.
+	 */
+	static class Match<T> {
+		final String path;
+		private Node<T> first;
+		private int[] firstOffsets;
+		private List<Node<T>> more;
+		private List<int[]> moreOffsets;
+
+		Match(String path) {
+			this.path = path;
+		}
+
+		void add(Node<T> node, int[] offsets) {
+			if (first == null) {
+				first = node;
+				firstOffsets = offsets;
+			} else {
+				if (more == null) {
+					more = new ArrayList<Node<T>>(2);
+					moreOffsets = new ArrayList<int[]>(2);
+				}
+				more.add(node);
+				moreOffsets.add(offsets);
+			}
+		}
+
+		boolean isEmpty() {
+			return first == null;
+		}
+
+		/**
+		 * Chooses the first added route for the given HTTP method and decodes its path parameters.
+		 *
+		 * @return The route, or null if the path does not match (404) or the method is not supported (405).
+		 */
+		RouteMatch<T> find(String httpMethod) {
+			if (first == null) return null;
+			Route<T> found = first.methods.get(httpMethod);
+			int[] offsets = firstOffsets;
+			if (more != null) {
+				for (int i = 0; i < more.size(); i++) {
+					Route<T> route = more.get(i).methods.get(httpMethod);
+					if (route != null && (found == null || route.order < found.order)) {
+						found = route;
+						offsets = moreOffsets.get(i);
+					}
+				}
+			}
+			if (found == null) return null;
+			Map<String, String> params = new HashMap<String, String>();
+			for (int i = 0; i < found.params.length; i++) {
+				params.put(found.params[i], decode(path.substring(offsets[i * 2], offsets[i * 2 + 1])));
+			}
+			return new RouteMatch<T>(found.target, path, params);
+		}
+
+		/**
+		 * @return HTTP methods of all the matching routes, in the order the routes were added.
+		 */
+		List<String> getAllowedMethods() {
+			List<String> methods = new ArrayList<String>();
+			if (first == null) return methods;
+			List<Route<T>> routes = first.routes;
+			if (more != null) {
+				routes = new ArrayList<Route<T>>(routes);
+				for (Node<T> node: more) routes.addAll(node.routes);
+				Collections.sort(routes, new Comparator<Route<T>>() {
+					@Override
+					public int compare(Route<T> r1, Route<T> r2) {
+						return r1.order - r2.order;
+					}
+				});
+			}
+			for (Route<T> route: routes) {
+				methods.add(route.httpMethod);
+			}
+			return methods;
+		}
+
+		private static String decode(String value) {
+			try {
+				return URLDecoder.decode(value, "UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new AssertionError(e);
+			}
+		}
+	}
+}
@@ -23,7 +23,6 @@ import com.rest4j.impl.model.Field;
 import com.rest4j.impl.model.FieldAccessType;
 
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
@@ -32,6 +31,8 @@ import java.lang.reflect.Method;
 class SimpleFieldMapping extends FieldMapping {
 	Method propGetter;
 	Method propSetter;
+	MethodInvoker getter;
+	MethodInvoker setter;
 
 	SimpleFieldMapping(MarshallerImpl marshaller, Field fld, String parent) throws ConfigurationException {
 		super(marshaller, fld, parent);
@@ -58,7 +59,11 @@ class SimpleFieldMapping extends FieldMapping {
 					throw new ConfigurationException("No getter for " + parent+"."+name + ", but it is not declared as writeonly. Use access='writeonly' in <complex> and <simple> tags.");
 				}
 			}
-			if (propSetter != null) propType = propSetter.getGenericParameterTypes()[0];
+			if (propGetter != null) getter = Invokers.forMethod(propGetter);
+			if (propSetter != null) {
+				setter = Invokers.forMethod(propSetter);
+				propType = propSetter.getGenericParameterTypes()[0];
+			}
 		}
 		return true;
 	}
@@ -74,40 +79,28 @@ class SimpleFieldMapping extends FieldMapping {
 	}
 
 	public void set(Object inst, Object fieldVal) throws ApiException {
-		if (propSetter == null) return; // the field is probably mapped to a Service method argument
+		if (setter == null) return; // the field is probably mapped to a Service method argument
+		fieldVal = cast(fieldVal);
 		try {
-			fieldVal = cast(fieldVal);
-			propSetter.invoke(inst, fieldVal);
-		} catch (IllegalArgumentException e) {
-			throw new ApiException("Cannot invoke "+propSetter+" "+e.getMessage()).setHttpStatus(500);
-		} catch (IllegalAccessException e) {
-			throw new ApiException("Cannot invoke "+propSetter+" "+e.getMessage()).setHttpStatus(500);
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof ApiException) {
-				throw (ApiException)e.getTargetException();
-			}
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
-			}
-			throw new RuntimeException("Cannot set "+name, e.getTargetException());
+			setter.invoke(inst, fieldVal);
+		} catch (ApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot set "+name, e);
 		}
 	}
 
 	public Object get(Object inst) throws ApiException {
 		try {
-			return propGetter.invoke(inst);
-		} catch (IllegalArgumentException e) {
-			throw new ApiException("Cannot invoke "+propSetter+" "+e.getMessage()).setHttpStatus(500);
-		} catch (IllegalAccessException e) {
-			throw new ApiException("Cannot invoke "+propGetter+" "+e.getMessage()).setHttpStatus(500);
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof ApiException) {
-				throw (ApiException)e.getTargetException();
-			}
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
-			}
-			throw new RuntimeException("Cannot get "+name, e.getTargetException());
+			return getter.invoke(inst);
+		} catch (ApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot get "+name, e);
 		}
 	}
 
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import com.rest4j.JSONResource;
+import com.rest4j.json.UTF8Writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A JSON array response produced by an Iterator or an Iterable that is not a Collection, e.g.
+ * a database cursor. The elements are marshalled and written while they are pulled, so the whole
+ * array is never kept in memory. Such responses are always sent with chunked transfer encoding
+ * and have no ETag, as computing it would consume the elements; an If-Match precondition on the
+ * same route fails with 412 (Precondition Failed) without reading them. The iterator (or the
+ * Iterable) is closed after writing if it implements Closeable.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class StreamingArrayResource extends JSONResource {
+	private final ArrayApiTypeImpl arrayType;
+	private final Object value;
+	private final boolean treePerElement;
+	private boolean consumed;
+	private Object json;
+
+	/**
+	 * @param value Iterator or Iterable.
+	 * @param treePerElement Marshal the elements to JSON trees one by one, so that field filters apply.
+	 */
+	StreamingArrayResource(ArrayApiTypeImpl arrayType, Object value, boolean treePerElement) {
+		super(null, arrayType);
+		this.arrayType = arrayType;
+		this.value = value;
+		this.treePerElement = treePerElement;
+	}
+
+	static boolean isStreamed(Object content) {
+		return content instanceof Iterator || content instanceof Iterable && !(content instanceof Collection);
+	}
+
+	@Override
+	public String getETag() {
+		return null;
+	}
+
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		UTF8Writer writer = new UTF8Writer(outputStream);
+		try {
+			JSONTextOutput out = new JSONTextOutput(writer, isPrettify() ? 2 : 0);
+			if (json != null) {
+				out.value(json);
+			} else {
+				Iterator iterator = iterator();
+				try {
+					arrayType.marshalElements(iterator, out, treePerElement);
+				} catch (ApiException e) {
+					throw new IOException("Cannot marshal "+arrayType.getJavaName()+": "+e.getMessage(), e);
+				} finally {
+					close(iterator);
+				}
+			}
+			writer.flush();
+		} finally {
+			writer.release();
+		}
+	}
+
+	/**
+	 * Builds the whole JSON array; after that the resource is written from the tree.
+	 */
+	@Override
+	public Object getJSONObject() {
+		if (json == null) {
+			Iterator iterator = iterator();
+			try {
+				json = arrayType.marshal(ArrayApiTypeImpl.iterable(iterator));
+			} catch (ApiException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				try {
+					close(iterator);
+				} catch (IOException e) {
+					// nothing can be done; the elements are already read
+				}
+			}
+		}
+		return json;
+	}
+
+	private Iterator iterator() {
+		if (consumed) throw new IllegalStateException("The response elements can be read only once");
+		consumed = true;
+		return value instanceof Iterator ? (Iterator) value : ((Iterable) value).iterator();
+	}
+
+	private void close(Iterator iterator) throws IOException {
+		if (iterator instanceof Closeable) ((Closeable) iterator).close();
+		if (value != iterator && value instanceof Closeable) ((Closeable) value).close();
+	}
+}
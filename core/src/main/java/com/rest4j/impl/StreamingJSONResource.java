@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import com.rest4j.JSONResource;
+import com.rest4j.Marshaller;
+import com.rest4j.json.UTF8Writer;
+import com.rest4j.type.ApiType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link JSONResource} that keeps the Java object and writes it straight to the output
+ * stream, walking the model field mappings instead of building a JSONObject tree first.
+ * The object graph is walked once, so getters, field mappers and converters are called once:
+ * <ul>
+ *     <li>when the resource is written before its ETag is asked for (a buffered response), the
+ *     ETag is hashed on the way; it is equal to the one a JSONResource with the marshalled tree
+ *     would have;</li>
+ *     <li>when the ETag is asked for first (a chunked response, an If-Match check), the tree is built,
+ *     hashed and then written, as a JSONResource would do.</li>
+ * </ul>
+ * When the ETag is known in advance or is a digest of the body ({@link ETagDigest}), no hash is computed.
+ * Marshalling errors come out of {@link #write(OutputStream)} or {@link #getETag()}.
+ *
+ * <p>The tree is also available via {@link #getJSONObject()}; it is built on the first call.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class StreamingJSONResource extends JSONResource {
+	private final Marshaller marshaller;
+	private final ApiType marshalType;
+	private final Object value;
+	private final boolean hashETag;
+	private String etag;
+	private Object json;
+
+	/**
+	 * A resource whose ETag is the hash of the JSON, like the one of a JSONResource.
+	 *
+	 * @param marshalType The type to marshal the value with.
+	 * @param value The Java object.
+	 * @param apiType The type reported by {@link #getApiType()}.
+	 */
+	StreamingJSONResource(Marshaller marshaller, ApiType marshalType, Object value, ApiType apiType) {
+		this(marshaller, marshalType, value, apiType, null, true);
+	}
+
+	/**
+	 * @param etag The ETag, if known in advance; null to use the digest of the body, computed on demand.
+	 */
+	StreamingJSONResource(Marshaller marshaller, ApiType marshalType, Object value, ApiType apiType, String etag) {
+		this(marshaller, marshalType, value, apiType, etag, false);
+	}
+
+	private StreamingJSONResource(Marshaller marshaller, ApiType marshalType, Object value, ApiType apiType, String etag, boolean hashETag) {
+		super(null, apiType);
+		this.marshaller = marshaller;
+		this.marshalType = marshalType;
+		this.value = value;
+		this.etag = etag;
+		this.hashETag = hashETag;
+	}
+
+	@Override
+	public String getETag() {
+		if (etag == null) {
+			if (hashETag) {
+				etag = "W/\""+getJSONObject().hashCode()+"\"";
+			} else {
+				try {
+					etag = ETagDigest.of(this);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		return etag;
+	}
+
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		UTF8Writer writer = new UTF8Writer(outputStream);
+		try {
+			JSONTextOutput text = new JSONTextOutput(writer, isPrettify() ? 2 : 0);
+			if (json != null) {
+				text.value(json);
+			} else if (hashETag && etag == null) {
+				JSONHashOutput hash = new JSONHashOutput();
+				ApiTypeImpl.marshal(marshalType, value, new Tee(text, hash));
+				etag = "W/\""+hash.getHashCode()+"\"";
+			} else {
+				ApiTypeImpl.marshal(marshalType, value, text);
+			}
+			writer.flush();
+		} catch (ApiException e) {
+			throw new IOException("Cannot marshal "+marshalType.getJavaName()+": "+e.getMessage(), e);
+		} finally {
+			writer.release();
+		}
+	}
+
+	@Override
+	public Object getJSONObject() {
+		if (json == null) {
+			try {
+				json = marshaller.marshal(marshalType, value);
+			} catch (ApiException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return json;
+	}
+
+	/**
+	 * Sends the events to two outputs.
+	 */
+	static class Tee extends JSONOutput {
+		private final JSONOutput first;
+		private final JSONOutput second;
+
+		Tee(JSONOutput first, JSONOutput second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		void beginObject(int size) throws IOException {
+			first.beginObject(size);
+			second.beginObject(size);
+		}
+
+		@Override
+		void key(String key) throws IOException {
+			first.key(key);
+			second.key(key);
+		}
+
+		@Override
+		void key(String key, byte[] encodedKey) throws IOException {
+			first.key(key, encodedKey);
+			second.key(key, encodedKey);
+		}
+
+		@Override
+		void endObject() throws IOException {
+			first.endObject();
+			second.endObject();
+		}
+
+		@Override
+		void beginArray(int size) throws IOException {
+			first.beginArray(size);
+			second.beginArray(size);
+		}
+
+		@Override
+		void endArray() throws IOException {
+			first.endArray();
+			second.endArray();
+		}
+
+		@Override
+		void value(Object value) throws IOException {
+			first.value(value);
+			second.value(value);
+		}
+
+		@Override
+		void value(int value) throws IOException {
+			first.value(value);
+			second.value(value);
+		}
+
+		@Override
+		void value(long value) throws IOException {
+			first.value(value);
+			second.value(value);
+		}
+
+		@Override
+		void value(double value) throws IOException {
+			first.value(value);
+			second.value(value);
+		}
+
+		@Override
+		protected void writeValue(Object value) throws IOException {
+			first.writeValue(value);
+			second.writeValue(value);
+		}
+	}
+}
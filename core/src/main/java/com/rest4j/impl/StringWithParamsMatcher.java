@@ -35,19 +35,24 @@ import java.util.regex.Pattern;
 public class StringWithParamsMatcher {
 	final Pattern pattern;
 	final List<String> names = new ArrayList<String>();
+	final String template; // like /pets/{id}
 
 	public StringWithParamsMatcher(StringWithParams stringWithParams) {
 		StringBuilder regexp = new StringBuilder();
+		StringBuilder template = new StringBuilder();
 		for (Object part: stringWithParams.getContent()) {
 			if (part instanceof String) {
 				regexp.append(Pattern.quote((String)part));
+				template.append((String)part);
 			} else if (part instanceof JAXBElement) {
 				JAXBElement element = (JAXBElement)part;
 				names.add(element.getValue().toString());
 				regexp.append("([^/]*)");
+				template.append('{').append(element.getValue()).append('}');
 			}
 		}
 		pattern = Pattern.compile(regexp.toString());
+		this.template = template.toString();
 	}
 
 	public Map<String, String> match(CharSequence str) {
@@ -116,6 +116,10 @@ public class Util {
 		}
 	}
 
+	static <T> T shallowClone(T object) {
+		return cloner.shallowClone(object);
+	}
+
 //	static <T> T deepClone(T object) {
 //		ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
 //		try {
@@ -27,6 +27,11 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="jsonp-param-name" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
  *         &lt;element name="prettify-by-default" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
  *         &lt;element name="prettify-param" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *         &lt;element name="response-mode" type="{http://rest4j.com/api-description}ResponseMode" minOccurs="0"/>
+ *         &lt;element name="compression-threshold" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="compression-level" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="max-body-size" type="{http://www.w3.org/2001/XMLSchema}long" minOccurs="0"/>
+ *         &lt;element name="etag-mode" type="{http://rest4j.com/api-description}ETagMode" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -39,7 +44,12 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "APIParams", propOrder = {
     "jsonpParamName",
     "prettifyByDefault",
-    "prettifyParam"
+    "prettifyParam",
+    "responseMode",
+    "compressionThreshold",
+    "compressionLevel",
+    "maxBodySize",
+    "etagMode"
 })
 public class APIParams {
 
@@ -49,6 +59,16 @@ public class APIParams {
     protected Boolean prettifyByDefault;
     @XmlElement(name = "prettify-param")
     protected String prettifyParam;
+    @XmlElement(name = "response-mode")
+    protected ResponseMode responseMode;
+    @XmlElement(name = "compression-threshold")
+    protected Integer compressionThreshold;
+    @XmlElement(name = "compression-level")
+    protected Integer compressionLevel;
+    @XmlElement(name = "max-body-size")
+    protected Long maxBodySize;
+    @XmlElement(name = "etag-mode")
+    protected ETagMode etagMode;
 
     /**
      * Gets the value of the jsonpParamName property.
@@ -122,4 +142,124 @@ public class APIParams {
         this.prettifyParam = value;
     }
 
+    /**
+     * Gets the value of the responseMode property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link ResponseMode }
+     *     
+     */
+    public ResponseMode getResponseMode() {
+        return responseMode;
+    }
+
+    /**
+     * Sets the value of the responseMode property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link ResponseMode }
+     *     
+     */
+    public void setResponseMode(ResponseMode value) {
+        this.responseMode = value;
+    }
+
+    /**
+     * Gets the value of the compressionThreshold property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Sets the value of the compressionThreshold property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setCompressionThreshold(Integer value) {
+        this.compressionThreshold = value;
+    }
+
+    /**
+     * Gets the value of the compressionLevel property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the value of the compressionLevel property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setCompressionLevel(Integer value) {
+        this.compressionLevel = value;
+    }
+
+    /**
+     * Gets the value of the maxBodySize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Long }
+     *     
+     */
+    public Long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Sets the value of the maxBodySize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Long }
+     *     
+     */
+    public void setMaxBodySize(Long value) {
+        this.maxBodySize = value;
+    }
+
+    /**
+     * Gets the value of the etagMode property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link ETagMode }
+     *     
+     */
+    public ETagMode getEtagMode() {
+        return etagMode;
+    }
+
+    /**
+     * Sets the value of the etagMode property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link ETagMode }
+     *     
+     */
+    public void setEtagMode(ETagMode value) {
+        this.etagMode = value;
+    }
+
 }
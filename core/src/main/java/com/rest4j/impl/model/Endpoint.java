@@ -32,12 +32,14 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="response" type="{http://rest4j.com/api-description}ContentType" minOccurs="0"/>
  *         &lt;element name="errors" type="{http://rest4j.com/api-description}Errors"/>
  *         &lt;element name="service" type="{http://rest4j.com/api-description}ServiceEntry"/>
+ *         &lt;element name="cache" type="{http://rest4j.com/api-description}EndpointCache" minOccurs="0"/>
  *         &lt;element name="extra" type="{http://rest4j.com/api-description}ExtraInfo" minOccurs="0"/>
  *       &lt;/sequence>
  *       &lt;attribute name="http" use="required" type="{http://rest4j.com/api-description}HttpMethod" />
  *       &lt;attribute name="httpsonly" type="{http://www.w3.org/2001/XMLSchema}boolean" default="false" />
  *       &lt;attribute name="client-method-name" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="client-param-object" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="version-resolver" type="{http://rest4j.com/api-description}identifier" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -54,6 +56,7 @@ import javax.xml.bind.annotation.XmlType;
     "response",
     "errors",
     "service",
+    "cache",
     "extra"
 })
 public class Endpoint {
@@ -70,6 +73,7 @@ public class Endpoint {
     protected Errors errors;
     @XmlElement(required = true)
     protected ServiceEntry service;
+    protected EndpointCache cache;
     protected ExtraInfo extra;
     @XmlAttribute(name = "http", required = true)
     protected HttpMethod http;
@@ -79,6 +83,8 @@ public class Endpoint {
     protected String clientMethodName;
     @XmlAttribute(name = "client-param-object")
     protected String clientParamObject;
+    @XmlAttribute(name = "version-resolver")
+    protected String versionResolver;
 
     /**
      * Gets the value of the route property.
@@ -248,6 +254,30 @@ public class Endpoint {
         this.service = value;
     }
 
+    /**
+     * Gets the value of the cache property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link EndpointCache }
+     *     
+     */
+    public EndpointCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the value of the cache property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link EndpointCache }
+     *     
+     */
+    public void setCache(EndpointCache value) {
+        this.cache = value;
+    }
+
     /**
      * Gets the value of the extra property.
      * 
@@ -372,4 +402,28 @@ public class Endpoint {
         this.clientParamObject = value;
     }
 
+    /**
+     * Gets the value of the versionResolver property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getVersionResolver() {
+        return versionResolver;
+    }
+
+    /**
+     * Sets the value of the versionResolver property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setVersionResolver(String value) {
+        this.versionResolver = value;
+    }
+
 }
@@ -33,6 +33,7 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;attribute name="class" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="instantiate" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="field-mapper" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="patch" type="{http://rest4j.com/api-description}PatchMode" default="clone" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -60,6 +61,8 @@ public class Model {
     protected String instantiate;
     @XmlAttribute(name = "field-mapper")
     protected String fieldMapper;
+    @XmlAttribute(name = "patch")
+    protected PatchMode patch;
 
     /**
      * Gets the value of the description property.
@@ -229,4 +232,32 @@ public class Model {
         this.fieldMapper = value;
     }
 
+    /**
+     * Gets the value of the patch property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link PatchMode }
+     *     
+     */
+    public PatchMode getPatch() {
+        if (patch == null) {
+            return PatchMode.CLONE;
+        } else {
+            return patch;
+        }
+    }
+
+    /**
+     * Sets the value of the patch property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link PatchMode }
+     *     
+     */
+    public void setPatch(PatchMode value) {
+        this.patch = value;
+    }
+
 }
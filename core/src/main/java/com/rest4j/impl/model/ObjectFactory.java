@@ -220,6 +220,14 @@ public class ObjectFactory {
         return new API();
     }
 
+    /**
+     * Create an instance of {@link EndpointCache }
+     * 
+     */
+    public EndpointCache createEndpointCache() {
+        return new EndpointCache();
+    }
+
     /**
      * Create an instance of {@link ServiceEntry }
      * 
@@ -1204,6 +1204,10 @@ public class JSONObject {
     }
 
     public static Writer quote(String string, Writer w) throws IOException {
+        if (w instanceof UTF8Writer) {
+            ((UTF8Writer) w).writeQuoted(string);
+            return w;
+        }
         if (string == null || string.length() == 0) {
             w.write("\"\"");
             return w;
@@ -1549,7 +1553,7 @@ public class JSONObject {
 		return this.write(writer, identSize, 0);
 	}
 
-    static final Writer writeValue(Writer writer, Object value,
+    public static final Writer writeValue(Writer writer, Object value,
             int indentFactor, int indent) throws JSONException, IOException {
         if (value == null || value.equals(null)) {
             writer.write("null");
@@ -1565,7 +1569,7 @@ public class JSONObject {
         } else if (value.getClass().isArray()) {
             new JSONArray(value).write(writer, indentFactor, indent);
         } else if (value instanceof Number) {
-            writer.write(numberToString((Number) value));
+            writeNumber(writer, (Number) value);
         } else if (value instanceof Boolean) {
             writer.write(value.toString());
         } else if (value instanceof JSONString) {
@@ -1582,6 +1586,38 @@ public class JSONObject {
         return writer;
     }
 
+    /**
+     * Writes numberToString(number), formatting integers and doubles without
+     * intermediate Strings if the writer is a UTF8Writer.
+     */
+    static void writeNumber(Writer writer, Number number) throws JSONException, IOException {
+        if (writer instanceof UTF8Writer) {
+            if (number instanceof Integer || number instanceof Long
+                    || number instanceof Short || number instanceof Byte) {
+                ((UTF8Writer) writer).writeLong(number.longValue());
+                return;
+            }
+            if (number instanceof Double) {
+                testValidity(number);
+                ((UTF8Writer) writer).writeDouble(number.doubleValue());
+                return;
+            }
+        }
+        writer.write(numberToString(number));
+    }
+
+    /**
+     * Writes "key":, copying the pre-encoded bytes if the writer is a UTF8Writer.
+     */
+    static void writeKey(Writer writer, String key) throws IOException {
+        if (writer instanceof UTF8Writer) {
+            ((UTF8Writer) writer).writeKey(key);
+        } else {
+            quote(key, writer);
+            writer.write(':');
+        }
+    }
+
     static final void indent(Writer writer, int indent) throws IOException {
         for (int i = 0; i < indent; i += 1) {
             writer.write(' ');
@@ -1607,8 +1643,7 @@ public class JSONObject {
 
             if (length == 1) {
                 Object key = keys.next();
-                writer.write(quote(key.toString()));
-                writer.write(':');
+                writeKey(writer, key.toString());
                 if (indentFactor > 0) {
                     writer.write(' ');
                 }
@@ -1624,8 +1659,7 @@ public class JSONObject {
                         writer.write('\n');
                     }
                     indent(writer, newindent);
-                    writer.write(quote(key.toString()));
-                    writer.write(':');
+                    writeKey(writer, key.toString());
                     if (indentFactor > 0) {
                         writer.write(' ');
                     }
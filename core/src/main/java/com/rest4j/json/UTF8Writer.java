@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A Writer that encodes characters to UTF-8 straight into a byte buffer, without a CharsetEncoder.
+ * Besides the usual Writer methods it can write JSON strings with the same escaping as
+ * {@link JSONObject#quote(String, Writer)} and object keys that were pre-encoded with
+ * {@link #encodeKey(String)}; JSONObject and JSONArray use these automatically when
+ * they are written to a UTF8Writer.
+ *
+ * <p>Malformed surrogate pairs are written as '?', like OutputStreamWriter does.
+ * The buffer is recycled per thread after {@link #release()}.</p>
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class UTF8Writer extends Writer {
+	static final int BUFFER_SIZE = 8192;
+	private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+	// the powers of ten that are exact doubles; the numbers are formatted with at most 15 significant digits
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+	private static final long[] LONG_POWERS_OF_TEN = {
+			1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+			10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+			1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L};
+	private static final ThreadLocal<byte[]> recycled = new ThreadLocal<byte[]>();
+	// keys known at configuration time, e.g. model field names
+	private static final ConcurrentMap<String, byte[]> keys = new ConcurrentHashMap<String, byte[]>();
+
+	private final OutputStream out;
+	private byte[] buffer;
+	private int pos;
+	private char highSurrogate; // the first half of a pair split between two write calls
+
+	public UTF8Writer(OutputStream out) {
+		this.out = out;
+		byte[] buffer = recycled.get();
+		if (buffer == null) {
+			buffer = new byte[BUFFER_SIZE];
+		} else {
+			recycled.set(null);
+		}
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Encodes an object key as the JSON text "key": and remembers the bytes, so that
+	 * {@link #writeKey(String)} only has to copy them. Meant for the names that are fixed at
+	 * configuration time; the keys are never forgotten.
+	 *
+	 * @return The encoded key, to be passed to {@link #writeRaw(byte[])}.
+	 */
+	public static byte[] encodeKey(String key) {
+		byte[] encoded = keys.get(key);
+		if (encoded == null) {
+			try {
+				encoded = (JSONObject.quote(key) + ':').getBytes("UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new AssertionError(e);
+			}
+			keys.putIfAbsent(key, encoded);
+		}
+		return encoded;
+	}
+
+	/**
+	 * Writes "key": for a JSON object member.
+	 */
+	public void writeKey(String key) throws IOException {
+		byte[] encoded = keys.get(key);
+		if (encoded != null) {
+			writeRaw(encoded);
+		} else {
+			writeQuoted(key);
+			write(':');
+		}
+	}
+
+	/**
+	 * Copies already encoded bytes to the output.
+	 */
+	public void writeRaw(byte[] bytes) throws IOException {
+		if (bytes.length > buffer.length - pos) {
+			flushBuffer();
+			if (bytes.length > buffer.length) {
+				out.write(bytes);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+		pos += bytes.length;
+	}
+
+	/**
+	 * Writes the string in double quotes, escaped exactly like {@link JSONObject#quote(String, Writer)}.
+	 */
+	public void writeQuoted(String string) throws IOException {
+		byte[] buffer = this.buffer;
+		if (pos + 2 > buffer.length) flushBuffer();
+		buffer[pos++] = '"';
+		if (string != null) {
+			int len = string.length();
+			char c = 0;
+			for (int i = 0; i < len; i++) {
+				char b = c;
+				c = string.charAt(i);
+				if (pos + 8 > buffer.length) flushBuffer();
+				if (c >= ' ' && c < 0x80) {
+					if (c == '"' || c == '\\' || c == '/' && b == '<') {
+						buffer[pos++] = '\\';
+					}
+					buffer[pos++] = (byte) c;
+				} else if (c < ' ' || c < 0xa0 || c >= 0x2000 && c < 0x2100) {
+					switch (c) {
+						case '\b': escape('b'); break;
+						case '\t': escape('t'); break;
+						case '\n': escape('n'); break;
+						case '\f': escape('f'); break;
+						case '\r': escape('r'); break;
+						default:
+							buffer[pos++] = '\\';
+							buffer[pos++] = 'u';
+							buffer[pos++] = HEX[c >> 12];
+							buffer[pos++] = HEX[(c >> 8) & 0xf];
+							buffer[pos++] = HEX[(c >> 4) & 0xf];
+							buffer[pos++] = HEX[c & 0xf];
+					}
+				} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(string.charAt(i + 1))) {
+					c = string.charAt(++i);
+					encodePair(string.charAt(i - 1), c);
+				} else {
+					encode(c);
+				}
+			}
+		}
+		if (pos + 1 > buffer.length) flushBuffer();
+		buffer[pos++] = '"';
+	}
+
+	/**
+	 * Writes the decimal digits of the number, like Long.toString, without creating a String.
+	 */
+	public void writeLong(long value) throws IOException {
+		if (pos + 21 > buffer.length) flushBuffer();
+		dropSurrogate();
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				write("-9223372036854775808");
+				return;
+			}
+			buffer[pos++] = '-';
+			value = -value;
+		}
+		writeDigits(value, digits(value));
+	}
+
+	/**
+	 * Writes a finite double exactly like {@link JSONObject#numberToString(Number)} does: the
+	 * Double.toString form with the trailing fraction zeros removed.
+	 *
+	 * <p>Numbers between 1e-3 and 1e7 that have at most 15 significant digits are formatted
+	 * without creating a String. Such a number has exactly one shortest decimal representation, and
+	 * that is what every Double.toString implementation returns. The other numbers go through
+	 * Double.toString.</p>
+	 */
+	public void writeDouble(double value) throws IOException {
+		double abs = Math.abs(value);
+		if (abs >= 1e-3 && abs < 1e7) {
+			// find the fewest fraction digits that still read back as the same double
+			for (int scale = 0; scale < POWERS_OF_TEN.length; scale++) {
+				double scaled = Math.rint(abs * POWERS_OF_TEN[scale]);
+				if (scaled >= 1e15) break;
+				if (scaled / POWERS_OF_TEN[scale] == abs) {
+					writeDecimal(value < 0, (long) scaled, scale);
+					return;
+				}
+			}
+		} else if (abs == 0) {
+			write(Double.doubleToRawLongBits(value) < 0 ? "-0" : "0");
+			return;
+		}
+		write(JSONObject.doubleToString(value));
+	}
+
+	private void writeDecimal(boolean negative, long unscaled, int scale) throws IOException {
+		if (pos + 21 > buffer.length) flushBuffer();
+		dropSurrogate();
+		if (negative) buffer[pos++] = '-';
+		long integer = unscaled / LONG_POWERS_OF_TEN[scale];
+		writeDigits(integer, digits(integer));
+		if (scale > 0) {
+			buffer[pos++] = '.';
+			writeDigits(unscaled - integer * LONG_POWERS_OF_TEN[scale], scale);
+		}
+	}
+
+	/**
+	 * Writes a non-negative number as exactly count digits, padding it with leading zeros.
+	 */
+	private void writeDigits(long value, int count) {
+		byte[] buffer = this.buffer;
+		int end = pos + count;
+		for (int i = end - 1; i >= pos; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		pos = end;
+	}
+
+	private static int digits(long value) {
+		int digits = 1;
+		while (digits < LONG_POWERS_OF_TEN.length && value >= LONG_POWERS_OF_TEN[digits]) digits++;
+		return digits;
+	}
+
+	private void dropSurrogate() {
+		if (highSurrogate != 0) {
+			highSurrogate = 0;
+			buffer[pos++] = '?';
+		}
+	}
+
+	private void escape(char c) {
+		buffer[pos++] = '\\';
+		buffer[pos++] = (byte) c;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		if (pos + 4 > buffer.length) flushBuffer();
+		if (c < 0x80 && highSurrogate == 0) {
+			buffer[pos++] = (byte) c;
+		} else {
+			writeChar((char) c);
+		}
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		for (int i = off; i < off + len; i++) {
+			if (pos + 4 > buffer.length) flushBuffer();
+			char c = cbuf[i];
+			if (c < 0x80 && highSurrogate == 0) {
+				buffer[pos++] = (byte) c;
+			} else {
+				writeChar(c);
+			}
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		for (int i = off; i < off + len; i++) {
+			if (pos + 4 > buffer.length) flushBuffer();
+			char c = str.charAt(i);
+			if (c < 0x80 && highSurrogate == 0) {
+				buffer[pos++] = (byte) c;
+			} else {
+				writeChar(c);
+			}
+		}
+	}
+
+	private void writeChar(char c) {
+		if (highSurrogate != 0) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				encodePair(high, c);
+				return;
+			}
+			buffer[pos++] = '?';
+		}
+		if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+		} else {
+			encode(c);
+		}
+	}
+
+	/**
+	 * Encodes a char that is not a part of a surrogate pair; a lone surrogate becomes '?'.
+	 */
+	private void encode(char c) {
+		byte[] buffer = this.buffer;
+		if (c < 0x80) {
+			buffer[pos++] = (byte) c;
+		} else if (c < 0x800) {
+			buffer[pos++] = (byte) (0xc0 | c >> 6);
+			buffer[pos++] = (byte) (0x80 | c & 0x3f);
+		} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+			buffer[pos++] = '?';
+		} else {
+			buffer[pos++] = (byte) (0xe0 | c >> 12);
+			buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3f);
+			buffer[pos++] = (byte) (0x80 | c & 0x3f);
+		}
+	}
+
+	private void encodePair(char high, char low) {
+		int codePoint = Character.toCodePoint(high, low);
+		byte[] buffer = this.buffer;
+		buffer[pos++] = (byte) (0xf0 | codePoint >> 18);
+		buffer[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+		buffer[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+		buffer[pos++] = (byte) (0x80 | codePoint & 0x3f);
+	}
+
+	private void flushBuffer() throws IOException {
+		if (pos > 0) {
+			out.write(buffer, 0, pos);
+			pos = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (highSurrogate != 0) {
+			highSurrogate = 0;
+			write('?');
+		}
+		flush();
+		out.close();
+	}
+
+	/**
+	 * Writes out the buffered bytes and hands the buffer over to the next UTF8Writer created by
+	 * this thread. The writer cannot be used after that.
+	 */
+	public void release() throws IOException {
+		if (buffer == null) return;
+		try {
+			flushBuffer();
+		} finally {
+			recycled.set(buffer);
+			buffer = null;
+		}
+	}
+}
@@ -70,6 +70,8 @@ public class APIFactoryBean implements FactoryBean<API>, ApplicationContextAware
 	API api;
 	private ApplicationContext context;
 	private PermissionChecker permissionChecker;
+	private MetricsSink metricsSink;
+	private String jmxName;
 
 	/**
 	 * Gets classpath to API XML description.
@@ -179,6 +181,8 @@ public class APIFactoryBean implements FactoryBean<API>, ApplicationContextAware
 				fac.addFieldFilter(ff);
 			}
 			fac.setPermissionChecker(permissionChecker);
+			fac.setMetricsSink(metricsSink);
+			fac.setJmxName(jmxName);
 			api = fac.createAPI();
 		}
 		return api;
@@ -272,4 +276,19 @@ public class APIFactoryBean implements FactoryBean<API>, ApplicationContextAware
 	public void setPermissionChecker(PermissionChecker permissionChecker) {
 		this.permissionChecker = permissionChecker;
 	}
+
+	/**
+	 * Receives per-request metrics. See {@link ApiFactory#setMetricsSink(MetricsSink)}.
+	 */
+	public void setMetricsSink(MetricsSink metricsSink) {
+		this.metricsSink = metricsSink;
+	}
+
+	/**
+	 * Publishes per-endpoint metrics as a JMX MBean with this name.
+	 * See {@link ApiFactory#setJmxName(String)}.
+	 */
+	public void setJmxName(String jmxName) {
+		this.jmxName = jmxName;
+	}
 }
@@ -24,8 +24,10 @@ import com.rest4j.impl.petapi.*;
 import com.rest4j.json.JSONArray;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import javax.xml.bind.JAXBContext;
@@ -33,6 +35,7 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import java.io.*;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -170,86 +173,6 @@ public class APIImplTest {
 		assertEquals("[DELETE, GET, PUT, PATCH]", allowedMethods.toString());
 	}
 
-	@Test public void testParseParam_missing() {
-		Parameter param = new Parameter();
-		param.setType(FieldType.BOOLEAN);
-		param.setName("test");
-		param.setOptional(false);
-		parseParam_exception(param, null, 400, "Absent parameter test");
-	}
-
-	@Test public void testParseParam_default() throws ApiException {
-		Parameter param = new Parameter();
-		param.setType(FieldType.STRING);
-		param.setName("test");
-		param.setOptional(true);
-		param.setDefault("DEFLT");
-		assertEquals("DEFLT", api.parseParam(param, null));
-	}
-
-	@Test public void testParseParam_wrong_boolean() throws ApiException {
-		Parameter param = new Parameter();
-		param.setType(FieldType.BOOLEAN);
-		param.setName("test");
-		parseParam_exception(param, "", 400, "Wrong parameter 'test' value:");
-		parseParam_exception(param, "234", 400, "Wrong parameter 'test' value:");
-	}
-
-	@Test public void testParseParam_wrong_number() throws ApiException {
-		Parameter param = new Parameter();
-		param.setType(FieldType.NUMBER);
-		param.setName("test");
-		parseParam_exception(param, "", 400, "Wrong numeric parameter 'test' value:");
-		parseParam_exception(param, "1122123123123123123123123123123", 400, "Wrong numeric parameter 'test' value:");
-	}
-
-	@Test public void testParseParam_good_boolean() throws ApiException {
-		Parameter param = new Parameter();
-		param.setType(FieldType.BOOLEAN);
-		param.setName("test");
-		assertEquals(true, api.parseParam(param, "yes"));
-		assertEquals(true, api.parseParam(param, "true"));
-		assertEquals(false, api.parseParam(param, "no"));
-		assertEquals(false, api.parseParam(param, "false"));
-	}
-
-	@Test public void testParseParam_good_number() throws ApiException {
-		Parameter param = new Parameter();
-		param.setType(FieldType.NUMBER);
-		param.setName("test");
-		assertEquals(123, ((Number) api.parseParam(param, "123")).intValue());
-		assertEquals(123.45, ((Number) api.parseParam(param, "123.45")).doubleValue(), 1e-10);
-	}
-
-	@Test public void testParseParam_enum() throws ApiException {
-		Parameter param = new Parameter();
-		param.setType(FieldType.STRING);
-		param.setName("test");
-		Values values = new Values();
-		values.getValue().add(value("one"));
-		values.getValue().add(value("two"));
-		values.getValue().add(value("three"));
-		param.setValues(values);
-		assertEquals("one", api.parseParam(param, "one"));
-		parseParam_exception(param, "four", 400, "Wrong parameter 'test' value: expected one of one, two, three");
-	}
-
-	Value value(String name) {
-		Value v = new Value();
-		v.setContent(name);
-		return v;
-	}
-
-	void parseParam_exception(Parameter param, String val, int status, String msg) {
-		try {
-			api.parseParam(param, val);
-			fail();
-		} catch (ApiException ex) {
-			assertEquals(status, ex.getHttpStatus());
-			if (msg != null) assertTrue(ex.getMessage(), ex.getMessage().contains(msg));
-		}
-	}
-
 	@Test(expected=ApiException.class) public void testServe_wrong_prefix() throws IOException, ApiException {
 		ApiRequest request = mockRequest("GET", "/xxx");
 		api.serve(request);
@@ -318,6 +241,42 @@ public class APIImplTest {
 		}
 	}
 
+	@Test public void testServe_metrics() throws IOException, ApiException {
+		final List<RequestMetrics> recorded = new ArrayList<RequestMetrics>();
+		api.setMetricsSink(new MetricsSink() {
+			@Override
+			public void record(RequestMetrics metrics) {
+				recorded.add(metrics);
+			}
+		});
+		ApiResponse response = api.serve(mockRequest("GET", "/api/v2/pets/555"));
+		assertTrue(recorded.isEmpty());
+		MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+		response.outputBody(mockResponse);
+		assertEquals(1, recorded.size());
+		RequestMetrics metrics = recorded.get(0);
+		assertEquals("GET /pets/{id}", metrics.getEndpoint());
+		assertEquals(200, metrics.getStatus());
+		assertEquals(mockResponse.getContentAsByteArray().length, metrics.getBytesOut());
+		long phases = 0;
+		for (RequestMetrics.Phase phase: RequestMetrics.Phase.values()) {
+			assertTrue(metrics.getNanos(phase) >= 0);
+			phases += metrics.getNanos(phase);
+		}
+		assertTrue(metrics.getTotalNanos() >= phases);
+
+		// error responses are recorded too
+		try {
+			api.serve(mockRequest("GET", "/api/v2/pets/xxx/zzz"));
+			fail();
+		} catch (ApiException ex) {
+			ex.createResponse().outputBody(new MockHttpServletResponse());
+		}
+		assertEquals(2, recorded.size());
+		assertNull(recorded.get(1).getEndpoint());
+		assertEquals(404, recorded.get(1).getStatus());
+	}
+
 	@Test public void testServe_mandatory_param() throws IOException, ApiException, JSONException {
 		ApiRequest request = mockRequest("PUT", "/api/v2/pets/555");
 		try {
@@ -595,6 +554,88 @@ public class APIImplTest {
 		assertEquals("\001\002\003\004\005", getBody(response)); // no jsonp support for binaries
 	}
 
+	@Test public void testServe_gzip_buffered() throws Exception {
+		iniJsonpApi();
+		MockHttpServletResponse mockResponse = serveGzipped("/api/v2/pet");
+		assertEquals("gzip", mockResponse.getHeader("Content-encoding"));
+		assertEquals(String.valueOf(mockResponse.getContentAsByteArray().length), String.valueOf(mockResponse.getHeader("Content-Length")));
+		assertEquals("{\"id\":0}", gunzip(mockResponse.getContentAsByteArray()));
+	}
+
+	@Test public void testServe_gzip_binary() throws Exception {
+		iniJsonpApi();
+		MockHttpServletResponse mockResponse = serveGzipped("/api/v2/pet/binary");
+		assertEquals("gzip", mockResponse.getHeader("Content-encoding"));
+		assertEquals("\001\002\003\004\005", gunzip(mockResponse.getContentAsByteArray()));
+	}
+
+	@Test public void testServe_binary_stream_not_buffered() throws Exception {
+		iniJsonpApi();
+		ApiRequest request = mockRequest("GET", "/api/v2/pet/binary");
+		ApiResponse response = api.serve(request);
+		MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+		response.outputBody(mockResponse);
+		assertNull(mockResponse.getHeader("Content-Length")); // the stream is copied as is, whatever its length
+		assertArrayEquals(new byte[]{1,2,3,4,5}, mockResponse.getContentAsByteArray());
+	}
+
+	@Test public void testConstructor_compression_params() throws Exception {
+		root.setParams(new APIParams());
+		root.getParams().setCompressionLevel(10);
+		try {
+			new APIImpl(root, "/api/v2", serviceProvider);
+			fail();
+		} catch (ConfigurationException ce) {
+			assertEquals("compression-level should be from -1 to 9: 10", ce.getMessage());
+		}
+		root.getParams().setCompressionLevel(-1);
+		root.getParams().setCompressionThreshold(-1);
+		try {
+			new APIImpl(root, "/api/v2", serviceProvider);
+			fail();
+		} catch (ConfigurationException ce) {
+			assertEquals("compression-threshold should not be negative: -1", ce.getMessage());
+		}
+	}
+
+	@Test public void testServe_gzip_threshold() throws Exception {
+		iniJsonpApi();
+		api.getParams().setCompressionThreshold(100);
+		MockHttpServletResponse mockResponse = serveGzipped("/api/v2/pet");
+		assertNull(mockResponse.getHeader("Content-encoding"));
+		assertEquals("8", String.valueOf(mockResponse.getHeader("Content-Length")));
+		assertEquals("{\"id\":0}", mockResponse.getContentAsString());
+
+		api.getParams().setResponseMode(ResponseMode.CHUNKED);
+		mockResponse = serveGzipped("/api/v2/pet");
+		assertNull(mockResponse.getHeader("Content-encoding"));
+		assertEquals("8", String.valueOf(mockResponse.getHeader("Content-Length")));
+		assertEquals("{\"id\":0}", mockResponse.getContentAsString());
+	}
+
+	@Test public void testServe_gzip_chunked() throws Exception {
+		iniJsonpApi();
+		api.getParams().setResponseMode(ResponseMode.CHUNKED);
+		api.getParams().setCompressionLevel(9);
+		MockHttpServletResponse mockResponse = serveGzipped("/api/v2/pet");
+		assertEquals("gzip", mockResponse.getHeader("Content-encoding"));
+		assertNull(mockResponse.getHeader("Content-Length"));
+		assertEquals("{\"id\":0}", gunzip(mockResponse.getContentAsByteArray()));
+	}
+
+	private MockHttpServletResponse serveGzipped(String path) throws Exception {
+		ApiRequest request = mockRequest("GET", path);
+		when(request.header("Accept-Encoding")).thenReturn("gzip, deflate");
+		ApiResponse response = api.serve(request);
+		MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+		response.outputBody(mockResponse);
+		return mockResponse;
+	}
+
+	private static String gunzip(byte[] bytes) throws IOException {
+		return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(bytes)), "UTF-8");
+	}
+
 	@Test public void testServe_map_response_body() throws Exception {
 		pets = new Object() {
 			public Map<String,Pet> get() {
@@ -623,6 +664,72 @@ public class APIImplTest {
 		assertEquals("[{\"id\":123,\"name\":\"Max\"}]", getBody(response));
 	}
 
+	@Test public void testServe_iterator_response_body() throws Exception {
+		final boolean[] closed = new boolean[1];
+		pets = new Object() {
+			public Iterator<Pet> get() {
+				final Iterator<Pet> cursor = Arrays.asList(MarshallerImplTest.createMax(), MarshallerImplTest.createMax()).iterator();
+				class Cursor implements Iterator<Pet>, Closeable {
+					public boolean hasNext() { return cursor.hasNext(); }
+					public Pet next() { return cursor.next(); }
+					public void remove() { }
+					public void close() { closed[0] = true; }
+				}
+				return new Cursor();
+			}
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("iterator-type.xml"), "/api/v2", serviceProvider).createAPI();
+		ApiRequest request = mockRequest("GET", "/api/v2/test");
+		ApiResponse response = api.serve(request);
+		MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+		response.outputBody(mockResponse);
+		assertEquals("[{\"id\":123,\"name\":\"Max\"},{\"id\":123,\"name\":\"Max\"}]", mockResponse.getContentAsString());
+		assertNull(mockResponse.getHeader("ETag"));
+		assertNull(mockResponse.getHeader("Content-Length"));
+		assertTrue(closed[0]);
+	}
+
+	public static abstract class PetCursor implements Iterator<Pet>, Closeable {
+	}
+
+	@Test public void testServe_if_match_iterator() throws Exception {
+		final int[] closed = new int[1];
+		final int[] deleted = new int[1];
+		final int[] read = new int[1];
+		pets = new Object() {
+			public PetCursor get() {
+				final Iterator<Pet> cursor = Arrays.asList(MarshallerImplTest.createMax()).iterator();
+				return new PetCursor() {
+					public boolean hasNext() { return cursor.hasNext(); }
+					public Pet next() { read[0]++; return cursor.next(); }
+					public void remove() { }
+					public void close() { closed[0]++; }
+				};
+			}
+			public void delete() {
+				deleted[0]++;
+			}
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("iterator-if-match.xml"), "/api/v2", serviceProvider).createAPI();
+
+		// the streamed array is sent without an ETag, so no precondition on it can hold
+		ApiRequest request = mockRequest("DELETE", "/api/v2/test");
+		when(request.header("If-Match")).thenReturn("W/\"xxx\"");
+		try {
+			api.serve(request);
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(412, ex.getHttpStatus());
+		}
+		assertEquals(0, deleted[0]);
+		assertEquals(0, read[0]); // the cursor is not drained
+		assertEquals(1, closed[0]);
+
+		api.serve(mockRequest("DELETE", "/api/v2/test"));
+		assertEquals(1, deleted[0]);
+		assertEquals(1, closed[0]);
+	}
+
 	@Test public void testServe_optional_request() throws Exception {
 		pets = new Object() {
 			public Pet post(Pet pet) {
@@ -655,6 +762,339 @@ public class APIImplTest {
 		assertEquals("", getBody(response));
 	}
 
+	@Test public void testServe_iterator_body() throws Exception {
+		final List<String> names = new ArrayList<String>();
+		pets = new Object() {
+			public Pet post(Iterator<Pet> pets) {
+				while (pets.hasNext()) names.add(pets.next().getName());
+				return null;
+			}
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("array-body.xml"), "/api/v2", serviceProvider).createAPI();
+		api.serve(jsonRequest("POST", "/api/v2/test", "[{\"name\":\"Max\"}, {\"name\":\"Bob\"}]"));
+		assertEquals(Arrays.asList("Max", "Bob"), names);
+	}
+
+	@Test public void testServe_iterable_body_error() throws Exception {
+		final List<String> names = new ArrayList<String>();
+		pets = new Object() {
+			public Pet post(Iterable<Pet> pets) {
+				for (Pet pet: pets) names.add(pet.getName());
+				return null;
+			}
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("array-body.xml"), "/api/v2", serviceProvider).createAPI();
+		try {
+			api.serve(jsonRequest("POST", "/api/v2/test", "[{\"name\":\"Max\"}, null]"));
+			fail();
+		} catch (ApiException ex) {
+			assertEquals("request body[1] should not be null", ex.getMessage());
+		}
+		assertEquals(Arrays.asList("Max"), names);
+	}
+
+	@Test public void testServe_cache() throws Exception {
+		final int[] calls = {0};
+		pets = new Object() {
+			public Pet get(int id, String suffix) {
+				calls[0]++;
+				Pet pet = new Pet();
+				pet.setId(id);
+				pet.setName("Max" + calls[0]);
+				return pet;
+			}
+			public void rename(int id) { }
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("cached-api.xml"), "/api/v2", serviceProvider).createAPI();
+
+		ApiRequest request = mockRequest("GET", "/api/v2/pets/1");
+		ApiResponse response = api.serve(request);
+		assertEquals("{\"id\":1,\"name\":\"Max1\"}", getBody(response));
+		assertEquals("Accept-Encoding, Accept-Language", getHeader(response, "Vary"));
+		String etag = ((ApiResponseImpl) response).response.getETag();
+		assertNotNull(etag);
+
+		// served from the cache, also gzipped and as 304
+		assertEquals("{\"id\":1,\"name\":\"Max1\"}", getBody(api.serve(request)));
+		assertEquals(etag, ((ApiResponseImpl) api.serve(request)).response.getETag());
+		MockHttpServletResponse mockResponse = serveGzipped("/api/v2/pets/1");
+		assertEquals("gzip", mockResponse.getHeader("Content-encoding"));
+		assertEquals("{\"id\":1,\"name\":\"Max1\"}", gunzip(mockResponse.getContentAsByteArray()));
+		when(request.header("If-None-Match")).thenReturn(etag);
+		try {
+			api.serve(request);
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(304, ex.getHttpStatus());
+			assertEquals(etag, ex.getHeader("ETag"));
+		}
+		assertEquals(1, calls[0]);
+
+		// other parameters and vary headers are cached separately
+		when(request.header("If-None-Match")).thenReturn(null);
+		when(request.param("suffix")).thenReturn("x");
+		assertEquals("{\"id\":1,\"name\":\"Max2\"}", getBody(api.serve(request)));
+		when(request.header("Accept-Language")).thenReturn("fr");
+		assertEquals("{\"id\":1,\"name\":\"Max3\"}", getBody(api.serve(request)));
+		assertEquals("{\"id\":1,\"name\":\"Max3\"}", getBody(api.serve(request)));
+		assertEquals("{\"id\":2,\"name\":\"Max4\"}", getBody(api.serve(mockRequest("GET", "/api/v2/pets/2"))));
+		assertEquals(4, calls[0]);
+	}
+
+	@Test public void testServe_cache_invalidation() throws Exception {
+		final int[] calls = {0};
+		pets = new Object() {
+			public Pet get(int id, String suffix) {
+				calls[0]++;
+				Pet pet = new Pet();
+				pet.setId(id);
+				return pet;
+			}
+			public void rename(int id) { }
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("cached-api.xml"), "/api/v2", serviceProvider).createAPI();
+		api.serve(mockRequest("GET", "/api/v2/pets/1"));
+		api.serve(mockRequest("GET", "/api/v2/pets/2"));
+		assertEquals(2, calls[0]);
+
+		// PUT on the same route drops the cached response of its own path only
+		api.serve(mockRequest("PUT", "/api/v2/pets/1"));
+		api.serve(mockRequest("GET", "/api/v2/pets/1"));
+		api.serve(mockRequest("GET", "/api/v2/pets/2"));
+		assertEquals(3, calls[0]);
+
+		api.invalidateCache("/api/v2/pets/2");
+		api.serve(mockRequest("GET", "/api/v2/pets/1"));
+		api.serve(mockRequest("GET", "/api/v2/pets/2"));
+		assertEquals(4, calls[0]);
+
+		api.clearCache();
+		api.serve(mockRequest("GET", "/api/v2/pets/1"));
+		assertEquals(5, calls[0]);
+	}
+
+	@Test public void testServe_version_resolver() throws Exception {
+		final int[] calls = {0};
+		final String[] version = {"1"};
+		pets = new Object() {
+			public Pet get(int id) {
+				calls[0]++;
+				Pet pet = new Pet();
+				pet.setId(id);
+				return pet;
+			}
+		};
+		final VersionResolver versions = new VersionResolver() {
+			@Override
+			public String getVersion(Params params) throws ApiException {
+				if (params.getNumber("id").intValue() == 404) throw new ApiException("Not found").setHttpStatus(404);
+				return version[0];
+			}
+		};
+		ServiceProvider provider = new ServiceProvider() {
+			@Override
+			public Object lookupService(String name) {
+				if ("petVersions".equals(name)) return versions;
+				return serviceProvider.lookupService(name);
+			}
+
+			@Override
+			public Object lookupFieldMapper(String model, String name) {
+				return null;
+			}
+
+			@Override
+			public Converter lookupConverter(String name) {
+				return null;
+			}
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("versioned-api.xml"), "/api/v2", provider).createAPI();
+
+		ApiRequest request = mockRequest("GET", "/api/v2/pets/1");
+		MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+		api.serve(request).outputBody(mockResponse);
+		assertEquals("W/\"1\"", mockResponse.getHeader("ETag"));
+		assertEquals(1, calls[0]);
+
+		// answered without calling the service
+		when(request.header("If-None-Match")).thenReturn("W/\"1\"");
+		try {
+			api.serve(request);
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(304, ex.getHttpStatus());
+			assertEquals("W/\"1\"", ex.getHeader("ETag"));
+		}
+		assertEquals(1, calls[0]);
+
+		version[0] = "2";
+		mockResponse = new MockHttpServletResponse();
+		api.serve(request).outputBody(mockResponse);
+		assertEquals("W/\"2\"", mockResponse.getHeader("ETag"));
+		assertEquals(2, calls[0]);
+
+		try {
+			api.serve(mockRequest("GET", "/api/v2/pets/404"));
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(404, ex.getHttpStatus());
+		}
+		assertEquals(2, calls[0]);
+	}
+
+	@Test public void testServe_if_match_version_resolver() throws Exception {
+		final int[] calls = {0, 0};
+		pets = new Object() {
+			public Pet get(int id) {
+				calls[0]++;
+				return new Pet();
+			}
+			public void delete(int id) {
+				calls[1]++;
+			}
+			public void patch(int id, Patch<Pet> patch) {
+			}
+		};
+		final VersionResolver versions = new VersionResolver() {
+			@Override
+			public String getVersion(Params params) throws ApiException {
+				return "7";
+			}
+		};
+		ServiceProvider provider = new ServiceProvider() {
+			@Override
+			public Object lookupService(String name) {
+				if ("petVersions".equals(name)) return versions;
+				return serviceProvider.lookupService(name);
+			}
+
+			@Override
+			public Object lookupFieldMapper(String model, String name) {
+				return null;
+			}
+
+			@Override
+			public Converter lookupConverter(String name) {
+				return null;
+			}
+		};
+		api = (APIImpl) new ApiFactory(getClass().getResource("versioned-write-api.xml"), "/api/v2", provider).createAPI();
+
+		// the precondition is checked against the version, without calling the GET service
+		ApiRequest request = mockRequest("DELETE", "/api/v2/pets/1");
+		when(request.header("If-Match")).thenReturn("W/\"7\"");
+		api.serve(request);
+		assertEquals(0, calls[0]);
+		assertEquals(1, calls[1]);
+
+		when(request.header("If-Match")).thenReturn("W/\"6\"");
+		try {
+			api.serve(request);
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(412, ex.getHttpStatus());
+		}
+		assertEquals(0, calls[0]);
+		assertEquals(1, calls[1]);
+	}
+
+	@Test public void testServe_patch_if_match_version_resolver() throws Exception {
+		final int[] calls = {0, 0, 0};
+		pets = new Object() {
+			public Pet get(int id) {
+				calls[0]++;
+				Pet pet = new Pet();
+				pet.setId(id);
+				return pet;
+			}
+			public void patch(int id, Patch<Pet> patch) {
+				calls[1]++;
+			}
+			public void delete(int id) {
+			}
+		};
+		final VersionResolver versions = new VersionResolver() {
+			@Override
+			public String getVersion(Params params) throws ApiException {
+				return "7";
+			}
+		};
+		ServiceProvider provider = new ServiceProvider() {
+			@Override
+			public Object lookupService(String name) {
+				if ("petVersions".equals(name)) return versions;
+				return serviceProvider.lookupService(name);
+			}
+
+			@Override
+			public Object lookupFieldMapper(String model, String name) {
+				return null;
+			}
+
+			@Override
+			public Converter lookupConverter(String name) {
+				return null;
+			}
+		};
+		ApiFactory factory = new ApiFactory(getClass().getResource("versioned-write-api.xml"), "/api/v2", provider);
+		factory.setPermissionChecker(new PermissionChecker() {
+			@Override
+			public void check(Endpoint endpoint, ApiRequest request) {
+				if ("GET".equals(endpoint.getHttp().value())) calls[2]++;
+			}
+		});
+		api = (APIImpl) factory.createAPI();
+
+		// a mismatch fails before the GET service is called
+		ApiRequest request = mockRequest("PATCH", "/api/v2/pets/1");
+		when(request.objectInput()).thenReturn(new JSONObject("{\"name\":\"Tom\"}"));
+		when(request.header("If-Match")).thenReturn("W/\"6\"");
+		try {
+			api.serve(request);
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(412, ex.getHttpStatus());
+		}
+		assertEquals(0, calls[0]);
+		assertEquals(0, calls[1]);
+		assertEquals(1, calls[2]);
+
+		// the GET parameters are parsed and checked once
+		when(request.header("If-Match")).thenReturn("W/\"7\"");
+		api.serve(request);
+		assertEquals(1, calls[0]);
+		assertEquals(1, calls[1]);
+		assertEquals(2, calls[2]);
+	}
+
+	@Test public void testServe_snapshot() throws Exception {
+		pets = new Object() {
+			public Pet get(int id, String suffix) {
+				Pet pet = new Pet();
+				pet.setId(id);
+				pet.setName("Max" + suffix);
+				return pet;
+			}
+			public void rename(int id) { }
+		};
+		ApiFactory factory = new ApiFactory(getClass().getResource("cached-api.xml"), "/api/v2", serviceProvider);
+		File snapshot = File.createTempFile("cached-api", ".snapshot");
+		snapshot.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(snapshot);
+		ApiSnapshot.write(factory.readModel(), out);
+		out.close();
+
+		factory = new ApiFactory(null, "/api/v2", serviceProvider);
+		factory.setSnapshot(snapshot.toURI().toURL());
+		api = (APIImpl) factory.createAPI();
+
+		ApiRequest request = mockRequest("GET", "/api/v2/pets/1");
+		when(request.param("suffix")).thenReturn("!");
+		ApiResponse response = api.serve(request);
+		assertEquals("{\"id\":1,\"name\":\"Max!\"}", getBody(response));
+		assertEquals("Accept-Encoding, Accept-Language", getHeader(response, "Vary"));
+	}
+
 	void iniJsonpApi() throws ConfigurationException {
 		pets = new Object() {
 			public Pet getJson() { return new Pet(); }
@@ -670,6 +1110,13 @@ public class APIImplTest {
 	    return mockResponse.getContentAsString();
 	}
 
+	ApiRequest jsonRequest(String method, String path, String body) throws UnsupportedEncodingException {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes("UTF-8"));
+		return ApiRequest.from(request);
+	}
+
 	ApiRequest mockRequest(String method, String path) {
 		ApiRequest request = mock(ApiRequest.class);
 		when(request.method()).thenReturn(method);
@@ -18,9 +18,17 @@
 package com.rest4j.impl;
 
 import com.rest4j.ApiException;
+import com.rest4j.ApiRequest;
+import com.rest4j.json.JSONArray;
+import com.rest4j.json.JSONException;
+import com.rest4j.json.JSONObject;
 import org.junit.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.fail;
 
@@ -48,4 +56,109 @@ public class ApiRequestServletImplTest {
 			assertEquals(415, ex.getHttpStatus());
 		}
 	}
+
+	@Test public void testObjectInput() throws Exception {
+		impl = new ApiRequestServletImpl(jsonRequest("\ufeff{\"name\":\"\u0416\u20ac\", \"n\":[1,2]}"));
+		JSONObject obj = impl.objectInput();
+		assertEquals("\u0416\u20ac", obj.getString("name"));
+		assertEquals(2, obj.getJSONArray("n").length());
+	}
+
+	@Test public void testObjectInput_wrongFormat() throws Exception {
+		String json = "\ufeff{\"name\":\n\"x\" 1}";
+		impl = new ApiRequestServletImpl(jsonRequest(json));
+		try {
+			impl.objectInput();
+			fail();
+		} catch (ApiException ex) {
+			try {
+				new JSONObject(json.substring(1));
+				fail();
+			} catch (JSONException e) {
+				assertEquals("Wrong JSON format: " + e.getMessage(), ex.getMessage());
+			}
+		}
+	}
+
+	@Test public void testArrayInput_maxBodySize() throws Exception {
+		impl = new ApiRequestServletImpl(jsonRequest("[1,2,3]"));
+		impl.setMaxBodySize(7);
+		assertEquals(3, impl.arrayInput().length());
+
+		impl = new ApiRequestServletImpl(jsonRequest("[1,2,3,4]"));
+		impl.setMaxBodySize(7);
+		try {
+			impl.arrayInput();
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(413, ex.getHttpStatus());
+		}
+	}
+
+	@Test public void testArrayElements() throws Exception {
+		String[] bodies = {"[]", "[1, ,\"x\",{\"a\":[2]},]", " [null, true ] "};
+		for (String body: bodies) {
+			JSONArray expected = new JSONArray(body);
+			impl = new ApiRequestServletImpl(jsonRequest(body));
+			ApiRequest.ArrayElements elements = impl.arrayElements();
+			JSONArray actual = new JSONArray();
+			while (elements.hasNext()) actual.put(elements.next());
+			assertEquals(expected.toString(), actual.toString());
+		}
+	}
+
+	@Test public void testArrayElements_wrongFormat() throws Exception {
+		String[] bodies = {"{}", "[1}", "[1,", "[\"x"};
+		for (String body: bodies) {
+			impl = new ApiRequestServletImpl(jsonRequest(body));
+			try {
+				ApiRequest.ArrayElements elements = impl.arrayElements();
+				while (elements.hasNext()) elements.next();
+				fail();
+			} catch (ApiException ex) {
+				try {
+					new JSONArray(body);
+					fail();
+				} catch (JSONException e) {
+					assertEquals("Wrong JSON format: " + e.getMessage(), ex.getMessage());
+				}
+			}
+		}
+	}
+
+	@Test public void testJSONInputReader_splitCharacters() throws Exception {
+		byte[] bytes = "\ufeff[\"\u0416\u20ac\ud83d\ude00\"]".getBytes("UTF-8");
+		// deliver the body one byte at a time to split every multi-byte sequence
+		final InputStream in = new ByteArrayInputStream(bytes);
+		JSONInputReader reader = new JSONInputReader(new InputStream() {
+			@Override
+			public int read() throws IOException {
+				return in.read();
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return in.read(b, off, Math.min(len, 1));
+			}
+		}, JSONInputReader.UTF8, -1);
+		StringBuilder str = new StringBuilder();
+		char[] buf = new char[2];
+		int n;
+		while ((n = reader.read(buf, 0, buf.length)) >= 0) str.append(buf, 0, n);
+		assertEquals("[\"\u0416\u20ac\ud83d\ude00\"]", str.toString());
+
+		try {
+			new JSONInputReader(new ByteArrayInputStream(bytes), JSONInputReader.UTF8, bytes.length - 1).read(buf, 0, 2);
+			fail();
+		} catch (JSONInputReader.BodyTooLargeException ex) {
+			// expected
+		}
+	}
+
+	private static MockHttpServletRequest jsonRequest(String json) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setContentType("application/json");
+		request.setContent(json.getBytes("UTF-8"));
+		return request;
+	}
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.ApiFactory;
+import com.rest4j.impl.model.API;
+import com.rest4j.impl.model.ObjectFactory;
+import org.junit.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class ApiSnapshotTest {
+
+	@Test public void testWriteRead() throws Exception {
+		API model = new ApiFactory(getClass().getResource("petapi.xml"), "", null).readModel();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ApiSnapshot.write(model, bytes);
+		API copy = ApiSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertNotSame(model, copy);
+		assertEquals(toXml(model), toXml(copy));
+	}
+
+	@Test(expected = InvalidObjectException.class) public void testRead_not_snapshot() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeUTF("something else");
+		out.close();
+		ApiSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	@Test(expected = InvalidClassException.class) public void testRead_class_not_allowed() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeUTF("rest4j-api-snapshot");
+		out.writeInt(1);
+		out.writeObject(new File("/etc/passwd"));
+		out.close();
+		ApiSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	@Test public void testIsAllowed() throws Exception {
+		ApiSnapshot.SnapshotInput input = new ApiSnapshot.SnapshotInput(new ByteArrayInputStream(header()), com.rest4j.impl.ext.ObjectFactory.class);
+		assertTrue(input.isAllowed("com.rest4j.impl.model.Endpoint"));
+		assertTrue(input.isAllowed("com.rest4j.impl.ApiSnapshot$ObjectFields"));
+		assertTrue(input.isAllowed("[Ljava.lang.Object;"));
+		assertTrue(input.isAllowed("java.lang.Integer"));
+		assertTrue(input.isAllowed(com.rest4j.impl.ext.ObjectFactory.class.getName()));
+		assertFalse(input.isAllowed("com.rest4j.impl.extra.Foo"));
+		assertTrue(input.isAllowed("java.util.HashMap"));
+		assertFalse(input.isAllowed("java.io.File"));
+		assertFalse(input.isAllowed("[Ljava.io.File;"));
+		assertFalse(input.isAllowed("com.rest4j.impl.modelx.Foo"));
+	}
+
+	private static byte[] header() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new ObjectOutputStream(bytes).close();
+		return bytes.toByteArray();
+	}
+
+	private static String toXml(API model) throws Exception {
+		Marshaller marshaller = JAXBContext.newInstance(ObjectFactory.class).createMarshaller();
+		StringWriter xml = new StringWriter();
+		marshaller.marshal(new ObjectFactory().createApi(model), xml);
+		return xml.toString();
+	}
+}
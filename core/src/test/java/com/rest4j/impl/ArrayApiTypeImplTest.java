@@ -17,16 +17,19 @@
 
 package com.rest4j.impl;
 
+import com.rest4j.ApiException;
+import com.rest4j.json.JSONArray;
+import com.rest4j.json.UTF8Writer;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
-import static org.junit.Assert.assertArrayEquals;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * @author Joseph Kapizza <joseph@rest4j.com>
@@ -57,6 +60,73 @@ public class ArrayApiTypeImplTest {
 		assertEquals(expect, set);
 	}
 
+	@Test public void testCast_primitive_unmarshalled() throws Exception {
+		long[] numbers = {1, 2};
+		assertSame(numbers, type.cast(numbers, long[].class));
+	}
+
+	@Test public void testMarshal_primitive() throws Exception {
+		ArrayApiTypeImpl booleans = new ArrayApiTypeImpl(null, new BooleanApiTypeImpl(null));
+		assertTrue(type.isPrimitiveArray(long[].class));
+		assertTrue(type.isPrimitiveArray(char[].class));
+		assertFalse(type.isPrimitiveArray(boolean[].class));
+		assertFalse(type.isPrimitiveArray(float[].class));
+		assertFalse(type.isPrimitiveArray(Long[].class));
+
+		assertEquals(new JSONArray("[1,-2]").toString(), type.marshal(new long[]{1, -2}).toString());
+		assertEquals(new JSONArray("[65]").toString(), type.marshal(new char[]{'A'}).toString());
+		assertEquals(new JSONArray("[true,false]").toString(), booleans.marshal(new boolean[]{true, false}).toString());
+
+		Object[][] cases = {
+				{type, new long[]{1, -2, Long.MAX_VALUE}}, {type, new int[]{}}, {type, new int[]{7}},
+				{type, new double[]{1.5, -0.25, 1e30}}, {type, new char[]{'A', '\u4e2d'}},
+				{booleans, new boolean[]{true, false}}};
+		for (Object[] c: cases) {
+			ArrayApiTypeImpl arrayType = (ArrayApiTypeImpl) c[0];
+			JSONArray tree = (JSONArray) arrayType.marshal(c[1]);
+			for (int indent: new int[] {0, 2}) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				UTF8Writer writer = new UTF8Writer(bytes);
+				arrayType.marshal(c[1], new JSONTextOutput(writer, indent));
+				writer.release();
+				assertEquals(tree.toString(indent), bytes.toString("UTF-8"));
+			}
+			JSONHashOutput hash = new JSONHashOutput();
+			arrayType.marshal(c[1], hash);
+			assertEquals(tree.hashCode(), hash.getHashCode());
+		}
+	}
+
+	@Test(expected = ApiException.class) public void testMarshal_primitive_nan() throws Exception {
+		type.marshal(new double[]{1, Double.NaN}, new JSONHashOutput());
+	}
+
+	@Test public void testUnmarshalPrimitive() throws Exception {
+		JSONArray json = new JSONArray("[1,2.5,65]");
+		assertArrayEquals(new long[]{1, 2, 65}, (long[]) type.unmarshalPrimitive(json, long.class));
+		assertArrayEquals(new int[]{1, 2, 65}, (int[]) type.unmarshalPrimitive(json, int.class));
+		assertArrayEquals(new double[]{1, 2.5, 65}, (double[]) type.unmarshalPrimitive(json, double.class), 1e-9);
+		assertEquals("\1\2A", new String((char[]) type.unmarshalPrimitive(json, char.class)));
+		ArrayApiTypeImpl booleans = new ArrayApiTypeImpl(null, new BooleanApiTypeImpl(null));
+		boolean[] flags = (boolean[]) booleans.unmarshalPrimitive(new JSONArray("[true,false]"), boolean.class);
+		assertTrue(flags[0]);
+		assertFalse(flags[1]);
+
+		assertUnmarshalError(type, "[1,null]", long.class, "{value}[1] should not be null");
+		assertUnmarshalError(type, "[1,'2']", int.class, "{value}[1] is expected to be a number");
+		assertUnmarshalError(booleans, "[1]", boolean.class, "{value}[0] is expected to be boolean");
+		assertUnmarshalError(type, "{}", long.class, "{value} should be an array");
+	}
+
+	private static void assertUnmarshalError(ArrayApiTypeImpl type, String json, Class componentType, String message) throws Exception {
+		try {
+			type.unmarshalPrimitive(json.startsWith("[") ? new JSONArray(json) : new com.rest4j.json.JSONObject(json), componentType);
+			fail();
+		} catch (ApiException e) {
+			assertEquals(message, e.getMessage());
+		}
+	}
+
 	private ParameterizedType getListType(final Class elementClass) {
 		return new ParameterizedType(){
 
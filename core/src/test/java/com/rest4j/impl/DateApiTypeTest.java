@@ -20,10 +20,13 @@ package com.rest4j.impl;
 import com.rest4j.ApiException;
 import org.junit.Test;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * @author Joseph Kapizza <joseph@rest4j.com>
@@ -55,4 +58,40 @@ public class DateApiTypeTest {
 	@Test public void testMarshal() throws ApiException {
 		assertEquals("2013-04-24T06:53:37.123Z", type.marshal(new Date(1366786417123l)));
 	}
+
+	@Test public void testUnmarshal_iso8601() throws ApiException {
+		assertEquals(1366779960500l, ((Date) type.unmarshal("2013-04-24T05:06:00.5Z")).getTime());
+		assertEquals(1366779960123l, ((Date) type.unmarshal("2013-04-24T05:06:00.123987Z")).getTime());
+		assertEquals(1366779960000l, ((Date) type.unmarshal("2013-04-24T05:06:00")).getTime());
+		assertEquals(1366779960000l, ((Date) type.unmarshal("2013-04-24T01:36:00-03:30")).getTime());
+		assertEquals(-11644473600000l, ((Date) type.unmarshal("1601-01-01")).getTime());
+		assertEquals(DateApiTypeImpl.NOT_PARSED, DateApiTypeImpl.parseIso8601("2013-02-29"));
+		assertEquals(DateApiTypeImpl.NOT_PARSED, DateApiTypeImpl.parseIso8601("2013-04-24T24:00:00Z"));
+		assertEquals(DateApiTypeImpl.NOT_PARSED, DateApiTypeImpl.parseIso8601("1500-01-01"));
+
+		// the rarer shapes are still parsed the slow way
+		assertEquals(type.unmarshal("2013-04-25T00:00:00Z"), type.unmarshal("2013-04-24T24:00:00Z"));
+		assertEquals(-14831769600000l, ((Date) type.unmarshal("1500-01-01T00:00:00Z")).getTime());
+	}
+
+	@Test public void testUnmarshal_invalid() {
+		for (String string: new String[] {"2013-02-29", "2013-04-24T05:06Z", "2013-04-24T05:06:00.Z", "24 Apr 2013", "garbage", ""}) {
+			try {
+				type.unmarshal(string);
+				fail(string);
+			} catch (ApiException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test public void testMarshal_like_SimpleDateFormat() throws ApiException {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.S'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		for (long time: new long[] {0, -1, 5, 50, 1366786417005l, -11644473600000l, -12219292800000l,
+				-14831769600000l, 253402300799999l, 253402300800000l, 951782400000l}) {
+			assertEquals(format.format(new Date(time)), type.marshal(new Date(time)));
+		}
+		assertEquals("2013-04-24T06:53:37.5Z", type.marshal(new java.sql.Date(1366786417005l)));
+	}
 }
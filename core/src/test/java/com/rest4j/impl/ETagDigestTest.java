@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.JSONResource;
+import com.rest4j.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class ETagDigestTest {
+
+	@Test public void testGetETag() throws Exception {
+		ETagDigest digest = new ETagDigest(null);
+		assertEquals("W/\"00000000000000000000000000000000\"", digest.getETag());
+		digest.write("The quick brown fox jumps over the lazy dog".getBytes("UTF-8"));
+		assertEquals("W/\"e34bbc7bbc071b6c7a433ca9c49a9347\"", digest.getETag());
+	}
+
+	@Test public void testWrite_split() throws Exception {
+		byte[] bytes = "{\"id\":123,\"name\":\"a somewhat longer value to span blocks\"}".getBytes("UTF-8");
+		ETagDigest whole = new ETagDigest(null);
+		whole.write(bytes);
+		for (int split = 0; split <= bytes.length; split++) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ETagDigest digest = new ETagDigest(out);
+			digest.write(bytes, 0, split);
+			for (int i = split; i < bytes.length; i++) digest.write(bytes[i]);
+			assertEquals(whole.getETag(), digest.getETag());
+			assertArrayEquals(bytes, out.toByteArray());
+		}
+	}
+
+	@Test public void testOf() throws Exception {
+		JSONResource resource = new JSONResource(new JSONObject("{\"id\":1}"), null);
+		resource.setPrettify(true);
+		ETagDigest digest = new ETagDigest(null);
+		digest.write("{\"id\":1}".getBytes("UTF-8"));
+		assertEquals(digest.getETag(), ETagDigest.of(resource));
+		assertTrue(resource.isPrettify());
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class InvokersTest {
+
+	@Test public void generated_getter_and_setter() throws Exception {
+		Bean bean = new Bean();
+		MethodInvoker setter = Invokers.forMethod(Bean.class.getMethod("setCount", int.class));
+		MethodInvoker getter = Invokers.forMethod(Bean.class.getMethod("getCount"));
+		assertFalse(getter instanceof Invokers.ReflectiveInvoker);
+		assertFalse(setter instanceof Invokers.ReflectiveInvoker);
+
+		assertNull(setter.invoke(bean, 42));
+		assertEquals(42, bean.getCount());
+		assertEquals(Integer.valueOf(42), getter.invoke(bean));
+	}
+
+	@Test public void invokers_are_cached() throws Exception {
+		Method method = Bean.class.getMethod("getName");
+		assertSame(Invokers.forMethod(method), Invokers.forMethod(method));
+	}
+
+	@Test public void custom_mapper_setter() throws Exception {
+		Bean bean = new Bean();
+		MethodInvoker setter = Invokers.forMethod(Mapper.class.getMethod("name", Bean.class, String.class));
+		MethodInvoker getter = Invokers.forMethod(Mapper.class.getMethod("name", Bean.class));
+		setter.invoke(new Mapper(), bean, "Max");
+		assertEquals("Max!", bean.getName());
+		assertEquals("Max!!", getter.invoke(new Mapper(), bean));
+	}
+
+	@Test public void exceptions_are_not_wrapped() throws Exception {
+		MethodInvoker getter = Invokers.forMethod(Bean.class.getMethod("getBroken"));
+		try {
+			getter.invoke(new Bean());
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("broken", e.getMessage());
+		}
+	}
+
+	@Test public void wrong_arguments_are_api_exceptions() throws Exception {
+		MethodInvoker setter = Invokers.forMethod(Bean.class.getMethod("setCount", int.class));
+		MethodInvoker reflective = new Invokers.ReflectiveInvoker(Bean.class.getMethod("setCount", int.class));
+		for (MethodInvoker invoker: new MethodInvoker[]{setter, reflective}) {
+			for (Object arg: new Object[]{null, "42"}) {
+				try {
+					invoker.invoke(new Bean(), arg);
+					fail();
+				} catch (ApiException e) {
+					assertEquals(500, e.getHttpStatus());
+					assertTrue(e.getMessage().startsWith("Cannot invoke"));
+				}
+			}
+		}
+	}
+
+	@Test public void non_public_class_uses_reflection() throws Exception {
+		MethodInvoker getter = Invokers.forMethod(Hidden.class.getMethod("getValue"));
+		assertTrue(getter instanceof Invokers.ReflectiveInvoker);
+		assertEquals("hidden", getter.invoke(new Hidden()));
+	}
+
+	public static class Bean {
+		int count;
+		String name;
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getBroken() {
+			throw new IllegalStateException("broken");
+		}
+	}
+
+	public static class Mapper {
+		public String name(Bean bean) {
+			return bean.getName() + "!";
+		}
+
+		public void name(Bean bean, String name) {
+			bean.setName(name + "!");
+		}
+	}
+
+	static class Hidden {
+		public String getValue() {
+			return "hidden";
+		}
+	}
+}
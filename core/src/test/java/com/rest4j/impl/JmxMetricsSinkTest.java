@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class JmxMetricsSinkTest {
+
+	@Test public void testHistogram_buckets() {
+		for (long value: new long[] {0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.index(value);
+			assertTrue(index < LatencyHistogram.BUCKETS);
+			assertTrue(LatencyHistogram.lowerBound(index) <= value);
+			if (index + 1 < LatencyHistogram.BUCKETS) {
+				assertTrue(LatencyHistogram.lowerBound(index + 1) > value);
+			}
+		}
+		assertEquals(7, LatencyHistogram.index(7));
+		assertEquals(LatencyHistogram.index(1000), LatencyHistogram.index(1010));
+	}
+
+	@Test public void testHistogram_percentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(0.5));
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050000, histogram.getSum());
+		assertEquals(100000, histogram.getMax());
+		long p50 = histogram.getPercentile(0.5);
+		assertTrue(p50 >= 50000 && p50 < 50000 * 1.125);
+		long p99 = histogram.getPercentile(0.99);
+		assertTrue(p99 >= 99000 && p99 <= 100000);
+		assertEquals(100000, histogram.getPercentile(1));
+	}
+
+	@Test public void testRecord() {
+		JmxMetricsSink sink = new JmxMetricsSink("test");
+		sink.record(metrics("GET /pets", 200, 10, 100));
+		sink.record(metrics("GET /pets", 200, 20, 200));
+		sink.record(metrics("GET /pets", 304, 0, 0));
+		sink.record(metrics(null, 404, 0, 50));
+		assertEquals(4, sink.getRequestCount());
+
+		Map<String, EndpointStatistics> endpoints = sink.getEndpoints();
+		assertEquals(2, endpoints.size());
+		EndpointStatistics pets = endpoints.get("GET /pets");
+		assertEquals(3, pets.getRequestCount());
+		assertEquals(30, pets.getBytesIn());
+		assertEquals(300, pets.getBytesOut());
+		assertEquals(Long.valueOf(2), pets.getStatusCounts().get(200));
+		assertEquals(Long.valueOf(1), pets.getStatusCounts().get(304));
+		assertEquals(3, pets.getTotal().getCount());
+		assertEquals(3, pets.getPhases().get("SERVICE").getCount());
+		assertEquals(Long.valueOf(1), endpoints.get(JmxMetricsSink.UNMATCHED).getStatusCounts().get(404));
+
+		sink.reset();
+		assertEquals(0, sink.getRequestCount());
+		assertTrue(sink.getEndpoints().isEmpty());
+	}
+
+	@Test public void testRegister() throws Exception {
+		JmxMetricsSink sink = new JmxMetricsSink("test \"api\"");
+		sink.register();
+		try {
+			sink.register(); // replaces the registered instance
+			sink.record(metrics("GET /pets", 200, 0, 100));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(1L, server.getAttribute(sink.getObjectName(), "RequestCount"));
+			TabularData endpoints = (TabularData) server.getAttribute(sink.getObjectName(), "Endpoints");
+			CompositeData row = endpoints.get(new Object[] {"GET /pets"});
+			CompositeData stats = (CompositeData) row.get("value");
+			assertEquals(100L, stats.get("bytesOut"));
+			assertEquals(1L, ((CompositeData) stats.get("total")).get("count"));
+		} finally {
+			sink.unregister();
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(sink.getObjectName()));
+	}
+
+	private static RequestMetrics metrics(String endpoint, int status, long bytesIn, long bytesOut) {
+		RequestMetrics metrics = new RequestMetrics(bytesIn);
+		metrics.endpoint = endpoint;
+		metrics.lap(RequestMetrics.Phase.ROUTING);
+		metrics.lap(RequestMetrics.Phase.SERVICE);
+		metrics.finish();
+		metrics.status = status;
+		metrics.bytesOut = bytesOut;
+		return metrics;
+	}
+}
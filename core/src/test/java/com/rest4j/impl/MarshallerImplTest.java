@@ -30,8 +30,10 @@ import com.rest4j.impl.polymorphic.Cat;
 import com.rest4j.impl.polymorphic.ObjectFactory;
 import com.rest4j.impl.recursive.Leaf;
 import com.rest4j.impl.recursive.Root;
+import com.rest4j.type.ApiType;
 import com.rest4j.type.Field;
 import com.rest4j.type.ObjectApiType;
+import com.rest4j.type.StringApiType;
 import com.rest4j.json.JSONArray;
 import com.rest4j.json.JSONException;
 import com.rest4j.json.JSONObject;
@@ -44,7 +46,10 @@ import javax.annotation.Nullable;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.*;
 
@@ -258,6 +263,67 @@ public class MarshallerImplTest {
 		assertEquals(maxJson.toString(), pet.toString());
 	}
 
+	@Test public void testMarshal_streaming() throws Exception {
+		Pet Max = createMax();
+		ObjectApiTypeImpl petType = marshaller.getObjectType("Pet");
+		assertStreamsLikeTree(petType, Max);
+		assertStreamsLikeTree(marshaller.getArrayType(petType), Arrays.asList(Max, Max));
+		assertStreamsLikeTree(marshaller.getArrayType(petType), new ArrayList<Pet>());
+		assertStreamsLikeTree(marshaller.getMapType(petType), Collections.singletonMap("Max", Max));
+	}
+
+	private void assertStreamsLikeTree(ApiType type, Object value) throws Exception {
+		JSONResource tree = new JSONResource(marshaller.marshal(type, value), type);
+		StreamingJSONResource streaming = new StreamingJSONResource(marshaller, type, value, type);
+		assertEquals(tree.getETag(), streaming.getETag());
+		for (boolean prettify: new boolean[]{false, true}) {
+			tree.setPrettify(prettify);
+			streaming.setPrettify(prettify);
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			tree.write(expected);
+			streaming.write(actual);
+			assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+		}
+		assertEquals(tree.getJSONObject(), streaming.getJSONObject());
+	}
+
+	@Test public void testMarshal_streaming_exception() throws Exception {
+		((PetMapping)customMapping).customMappingException = new ApiException("Test");
+		ObjectApiTypeImpl petType = marshaller.getObjectType("Pet");
+		try {
+			new StreamingJSONResource(marshaller, petType, createMax(), petType).write(new ByteArrayOutputStream());
+			fail();
+		} catch (IOException e) {
+			assertEquals(400, ((ApiException) e.getCause()).getHttpStatus());
+		}
+		try {
+			new StreamingJSONResource(marshaller, petType, createMax(), petType).getETag();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(400, ((ApiException) e.getCause()).getHttpStatus());
+		}
+	}
+
+	@Test public void testMarshal_streaming_once() throws Exception {
+		PetMapping mapping = (PetMapping) customMapping;
+		ObjectApiTypeImpl petType = marshaller.getObjectType("Pet");
+		String expected = new JSONResource(marshaller.marshal(petType, createMax()), petType).getETag();
+		mapping.petRelationsCalls = 0;
+
+		// written first: hashed on the way
+		StreamingJSONResource streaming = new StreamingJSONResource(marshaller, petType, createMax(), petType);
+		streaming.write(new ByteArrayOutputStream());
+		assertEquals(expected, streaming.getETag());
+		assertEquals(1, mapping.petRelationsCalls);
+
+		// the ETag asked first: hashed and written from the tree
+		streaming = new StreamingJSONResource(marshaller, petType, createMax(), petType);
+		assertEquals(expected, streaming.getETag());
+		streaming.write(new ByteArrayOutputStream());
+		assertEquals(2, mapping.petRelationsCalls);
+	}
+
 	@Test public void testMarshal_custom_mapping_exception() throws Exception {
 		((PetMapping)customMapping).customMappingException = new ApiException("Test");
 		new ExpectAPIException(400, "Test") {
@@ -297,6 +363,22 @@ public class MarshallerImplTest {
 		};
 	}
 
+	@Test public void testTypes_canonical() throws Exception {
+		ObjectApiTypeImpl petType = marshaller.getObjectType("Pet");
+		assertSame(marshaller.getArrayType(petType), marshaller.getArrayType(petType));
+		assertSame(marshaller.getMapType(petType), marshaller.getMapType(petType));
+		assertNotSame(marshaller.getArrayType(petType), marshaller.getArrayType(marshaller.getNumberType()));
+		assertSame(marshaller.getNumberType(), marshaller.getNumberType());
+		assertSame(marshaller.getDateType(), marshaller.getDateType());
+		assertSame(marshaller.getStringType(null), marshaller.getStringType(null));
+		String[] values = {"cat", "dog"};
+		StringApiType enumType = marshaller.getStringType(values);
+		assertSame(enumType, marshaller.getStringType(new String[]{"cat", "dog"}));
+		assertNotSame(enumType, marshaller.getStringType(new String[]{"cat"}));
+		values[1] = "bird"; // the interned type keeps its own copy
+		assertSame(enumType, marshaller.getStringType(new String[]{"cat", "dog"}));
+	}
+
 	@Test public void testMarshal_polymorpic() throws Exception {
 		customMapping = new com.rest4j.impl.polymorphic.PetMapping();
 		createMarshaller("polymorphic-api.xml");
@@ -327,6 +409,50 @@ public class MarshallerImplTest {
 		assertEquals(1.23, bird.getBeakStrength(), 1e-5);
 	}
 
+	@Test public void testPolymorphic_concurrent_subclass_lookup() throws Exception {
+		customMapping = new com.rest4j.impl.polymorphic.PetMapping();
+		final Cat cat = new Cat();
+		cat.setId(555);
+		cat.setLongFur(true);
+		for (int round = 0; round < 20; round++) {
+			// a fresh marshaller every round, so that the threads race to create the subclass mappings
+			createMarshaller("polymorphic-api.xml", new ObjectFactory());
+			final ObjectApiTypeImpl petType = marshaller.getObjectType("Pet");
+			final CountDownLatch start = new CountDownLatch(1);
+			final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+			Thread[] threads = new Thread[8];
+			for (int t = 0; t < threads.length; t++) {
+				final int thread = t;
+				threads[t] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							for (int i = 0; i < 200; i++) {
+								if ((thread + i) % 2 == 0) {
+									JSONObject json = (JSONObject) petType.marshal(cat);
+									assertEquals("cat", json.getString("type"));
+									assertEquals(true, json.getBoolean("longFur"));
+								} else {
+									Bird bird = (Bird) petType.unmarshal(new JSONObject("{id:555,beakStrength:1.23,type:'bird'}"));
+									assertEquals(1.23, bird.getBeakStrength(), 1e-5);
+								}
+							}
+						} catch (Throwable e) {
+							errors.add(e);
+						}
+					}
+				};
+				threads[t].start();
+			}
+			start.countDown();
+			for (Thread thread: threads) thread.join();
+			assertEquals(Collections.<Throwable>emptyList(), errors);
+			assertSame(petType.getMapping(Cat.class), petType.getMapping(Cat.class));
+			assertSame(petType.getMapping(Bird.class), petType.getSubtype(Bird.class));
+		}
+	}
+
 	@Test public void testUnmarshal_nested_property() throws Exception {
 		createMarshaller("nested-properties.xml");
 		NestedPet pet = (NestedPet) marshaller.getObjectType("Pet").unmarshal(new JSONObject("{id:555,weight:0.55}"));
@@ -349,6 +475,23 @@ public class MarshallerImplTest {
 		assertEquals(0.55, pet.getPhysicalCharacteristics().getWeight(), 1e-5);
 	}
 
+	@Test public void testUnmarshalPatch_nested_property_copy_on_write() throws Exception {
+		createMarshaller("nested-copy-on-write.xml");
+		NestedPet pet = new NestedPet();
+		pet.setId(555);
+		pet.getPhysicalCharacteristics().setWeight(0.55);
+		PhysicalCharacteristics characteristics = pet.getPhysicalCharacteristics();
+		NestedPet patched = (NestedPet) marshaller.getObjectType("Pet").unmarshalPatch(pet, new JSONObject("{weight:0.77}"));
+
+		assertEquals(555, patched.getId());
+		assertEquals(0.77, patched.getPhysicalCharacteristics().getWeight(), 1e-5);
+
+		// the original is not changed
+		assertSame(characteristics, pet.getPhysicalCharacteristics());
+		assertEquals(0.55, characteristics.getWeight(), 1e-5);
+		assertNotSame(characteristics, patched.getPhysicalCharacteristics());
+	}
+
 	@Test public void testMarshal_nested_property() throws Exception {
 		createMarshaller("nested-properties.xml");
 		NestedPet pet = new NestedPet();
@@ -573,6 +716,38 @@ public class MarshallerImplTest {
 		assertEquals(5, patched.getObject().getNumber());
 	}
 
+	@Test public void testUnmarshalPatch_copy_on_write() throws Exception {
+		createMarshaller("copy-on-write-patch.xml");
+		Root root = new Root();
+		Leaf leaf = new Leaf();
+		leaf.setNumber(5);
+		root.setMap(new HashMap<String, Integer>());
+		root.setObject(leaf);
+		Map<String, Leaf> omap = new LinkedHashMap<String, Leaf>();
+		omap.put("key", leaf);
+		omap.put("other", new Leaf());
+		root.setObjectMap(omap);
+		root.setArray(new ArrayList<Leaf>());
+		Root patched = (Root) marshaller.getObjectType("Root").unmarshalPatch(root, new JSONObject("{number:7,objectMap:{\"key\":{string:\"test\"}}}"));
+
+		assertEquals(7, patched.getNumber());
+		assertEquals("test", patched.getObjectMap().get("key").getString());
+		assertEquals(5, patched.getObjectMap().get("key").getNumber());
+		assertEquals(LinkedHashMap.class, patched.getObjectMap().getClass());
+
+		// the original is not changed
+		assertEquals(0, root.getNumber());
+		assertNull(leaf.getString());
+		assertSame(leaf, root.getObjectMap().get("key"));
+
+		// only the objects on the patched paths are copied
+		assertNotSame(root.getObjectMap(), patched.getObjectMap());
+		assertSame(root.getObjectMap().get("other"), patched.getObjectMap().get("other"));
+		assertSame(leaf, patched.getObject());
+		assertSame(root.getMap(), patched.getMap());
+		assertSame(root.getArray(), patched.getArray());
+	}
+
 	@Test public void testMarshal_java_arrays() throws Exception {
 		createMarshaller("arrays.xml");
 		Array array = new Array();
@@ -17,7 +17,11 @@
 
 package com.rest4j.impl;
 
+import com.rest4j.json.JSONObject;
+import com.rest4j.json.UTF8Writer;
 import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
 import static org.junit.Assert.*;
 
 /**
@@ -37,4 +41,34 @@ public class NumberApiTypeImplTest {
 		assertEquals(1, type.marshal('\1'));
 		assertEquals(1, type.marshal(1));
 	}
+
+	@Test public void testMarshal_stream() throws Exception {
+		for (Object value: new Object[] {'\1', '\u4e2d', 12, -7L, 4.30, -0.0, 1e21, 0.001}) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			UTF8Writer writer = new UTF8Writer(bytes);
+			type.marshal(value, new JSONTextOutput(writer, 0));
+			writer.release();
+			assertEquals(JSONObject.valueToString(type.marshal(value)), bytes.toString("UTF-8"));
+
+			JSONHashOutput hash = new JSONHashOutput();
+			type.marshal(value, hash);
+			assertEquals(type.marshal(value).hashCode(), hash.getHashCode());
+		}
+	}
+
+	@Test public void testStream_primitives() throws Exception {
+		JSONHashOutput hash = new JSONHashOutput();
+		hash.value(Long.MIN_VALUE);
+		assertEquals(Long.valueOf(Long.MIN_VALUE).hashCode(), hash.getHashCode());
+		hash.value(-2.5);
+		assertEquals(Double.valueOf(-2.5).hashCode(), hash.getHashCode());
+		hash.value(-3);
+		assertEquals(-3, hash.getHashCode());
+		try {
+			hash.value(Double.NaN);
+			fail();
+		} catch (com.rest4j.json.JSONException e) {
+			// the tree rejects it too
+		}
+	}
 }
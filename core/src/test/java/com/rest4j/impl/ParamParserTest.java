@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.impl;
+
+import com.rest4j.ApiException;
+import com.rest4j.impl.model.FieldType;
+import com.rest4j.impl.model.Parameter;
+import com.rest4j.impl.model.Value;
+import com.rest4j.impl.model.Values;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class ParamParserTest {
+
+	@Test public void testNumber() {
+		ParamParser parser = ParamParser.create(param(FieldType.NUMBER, null));
+		String[] strings = {"0", "-0", "7", " 42 ", "-123", "+5", "007", "123456789012345", "1234567890123456789",
+				"-9223372036854775808", "1.5", "-0.0", "1.", ".25", "+.5", "0.1", "123456.789012345", "0.30000000000000004",
+				"1e3", "1E-3", "2.5e10", "0x10", "1.5d", "١٢٣"};
+		for (String string: strings) {
+			assertEquals(string, reference(string), parse(parser, string));
+		}
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			String string = Long.toString(random.nextLong() % 10000000000000000L);
+			int point = random.nextInt(string.length() + 1);
+			if (point > 0 && string.charAt(point - 1) != '-') string = string.substring(0, point) + '.' + string.substring(point);
+			assertEquals(string, reference(string), parse(parser, string));
+		}
+	}
+
+	@Test public void testNumber_wrong() {
+		ParamParser parser = ParamParser.create(param(FieldType.NUMBER, null));
+		for (String string: new String[] {"", "-", ".", "1.2.3", "12a", "9223372036854775808", "1122123123123123123123123123123"}) {
+			try {
+				parser.parse(string);
+				fail(string);
+			} catch (ApiException e) {
+				assertEquals("Wrong numeric parameter 'test' value: not a number or a number out of range", e.getMessage());
+			}
+		}
+	}
+
+	@Test public void testEnum() throws ApiException {
+		Parameter param = param(FieldType.STRING, null);
+		param.setValues(new Values());
+		for (String content: new String[] {"cat", "dog"}) {
+			Value value = new Value();
+			value.setContent(content);
+			param.getValues().getValue().add(value);
+		}
+		ParamParser parser = ParamParser.create(param);
+		assertEquals("dog", parser.parse("dog"));
+		try {
+			parser.parse("cow");
+			fail();
+		} catch (ApiException e) {
+			assertEquals("Wrong parameter 'test' value: expected one of cat, dog", e.getMessage());
+		}
+	}
+
+	@Test public void testDefault() throws ApiException {
+		ParamParser parser = ParamParser.create(param(FieldType.NUMBER, "10"));
+		assertEquals(10L, parser.parse(null));
+		assertSame(parser.parse(null), parser.parse(null));
+
+		parser = ParamParser.create(param(FieldType.BOOLEAN, "maybe"));
+		assertEquals(Boolean.TRUE, parser.parse("on"));
+		try {
+			parser.parse(null);
+			fail();
+		} catch (ApiException e) {
+			assertTrue(e.getMessage().startsWith("Wrong parameter 'test' value:"));
+		}
+	}
+
+	@Test public void testParams() {
+		Map<String, Integer> slots = new HashMap<String, Integer>();
+		slots.put("id", 0);
+		slots.put("name", 1);
+		ParamsImpl params = new ParamsImpl(slots, 2);
+		params.set(0, 5L);
+		params.set(1, "Max");
+		assertEquals(5L, params.getNumber("id"));
+		assertEquals("Max", params.getString("name"));
+		assertEquals("Max", params.get(1));
+		assertNull(params.get("other"));
+	}
+
+	@Test public void testParams_map() {
+		Map<String, Integer> slots = new HashMap<String, Integer>();
+		slots.put("id", 0);
+		slots.put("type", 1);
+		ParamsImpl params = new ParamsImpl(slots, 2);
+		params.set(0, 42L);
+
+		Map<String, Object> expected = new HashMap<String, Object>();
+		expected.put("id", 42L);
+		expected.put("type", null);
+		assertEquals(expected, params);
+		assertEquals(expected.hashCode(), params.hashCode());
+		assertTrue(params.containsKey("type"));
+		assertFalse(params.containsKey("name"));
+		assertEquals(42L, params.getNumber("id"));
+		assertNull(params.get("name"));
+
+		assertNull(params.put("type", "cat"));
+		assertEquals("cat", params.getString("type"));
+		for (Map.Entry<String, Object> entry: params.entrySet()) {
+			if (entry.getKey().equals("id")) entry.setValue(43L);
+		}
+		assertEquals(43L, params.get("id"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class) public void testParams_put_not_a_parameter() {
+		new ParamsImpl(new HashMap<String, Integer>(), 0).put("name", "Max");
+	}
+
+	@Test public void testParseParam_missing() {
+		Parameter param = new Parameter();
+		param.setType(FieldType.BOOLEAN);
+		param.setName("test");
+		param.setOptional(false);
+		parseParam_exception(param, null, 400, "Absent parameter test");
+	}
+
+	@Test public void testParseParam_default() throws ApiException {
+		Parameter param = new Parameter();
+		param.setType(FieldType.STRING);
+		param.setName("test");
+		param.setOptional(true);
+		param.setDefault("DEFLT");
+		assertEquals("DEFLT", ParamParser.create(param).parse(null));
+	}
+
+	@Test public void testParseParam_wrong_boolean() throws ApiException {
+		Parameter param = new Parameter();
+		param.setType(FieldType.BOOLEAN);
+		param.setName("test");
+		parseParam_exception(param, "", 400, "Wrong parameter 'test' value:");
+		parseParam_exception(param, "234", 400, "Wrong parameter 'test' value:");
+	}
+
+	@Test public void testParseParam_wrong_number() throws ApiException {
+		Parameter param = new Parameter();
+		param.setType(FieldType.NUMBER);
+		param.setName("test");
+		parseParam_exception(param, "", 400, "Wrong numeric parameter 'test' value:");
+		parseParam_exception(param, "1122123123123123123123123123123", 400, "Wrong numeric parameter 'test' value:");
+	}
+
+	@Test public void testParseParam_good_boolean() throws ApiException {
+		Parameter param = new Parameter();
+		param.setType(FieldType.BOOLEAN);
+		param.setName("test");
+		assertEquals(true, ParamParser.create(param).parse("yes"));
+		assertEquals(true, ParamParser.create(param).parse("true"));
+		assertEquals(false, ParamParser.create(param).parse("no"));
+		assertEquals(false, ParamParser.create(param).parse("false"));
+	}
+
+	@Test public void testParseParam_good_number() throws ApiException {
+		Parameter param = new Parameter();
+		param.setType(FieldType.NUMBER);
+		param.setName("test");
+		assertEquals(123, ((Number) ParamParser.create(param).parse("123")).intValue());
+		assertEquals(123.45, ((Number) ParamParser.create(param).parse("123.45")).doubleValue(), 1e-10);
+	}
+
+	@Test public void testParseParam_enum() throws ApiException {
+		Parameter param = new Parameter();
+		param.setType(FieldType.STRING);
+		param.setName("test");
+		Values values = new Values();
+		values.getValue().add(value("one"));
+		values.getValue().add(value("two"));
+		values.getValue().add(value("three"));
+		param.setValues(values);
+		assertEquals("one", ParamParser.create(param).parse("one"));
+		parseParam_exception(param, "four", 400, "Wrong parameter 'test' value: expected one of one, two, three");
+	}
+
+	Value value(String name) {
+		Value v = new Value();
+		v.setContent(name);
+		return v;
+	}
+
+	void parseParam_exception(Parameter param, String val, int status, String msg) {
+		try {
+			ParamParser.create(param).parse(val);
+			fail();
+		} catch (ApiException ex) {
+			assertEquals(status, ex.getHttpStatus());
+			if (msg != null) assertTrue(ex.getMessage(), ex.getMessage().contains(msg));
+		}
+	}
+
+	private static Object parse(ParamParser parser, String string) {
+		try {
+			return parser.parse(string);
+		} catch (ApiException e) {
+			return "error";
+		}
+	}
+
+	private static Parameter param(FieldType type, String defaultValue) {
+		Parameter param = new Parameter();
+		param.setType(type);
+		param.setName("test");
+		param.setDefault(defaultValue);
+		return param;
+	}
+
+	/**
+	 * How the numbers used to be parsed.
+	 */
+	private static Object reference(String string) {
+		string = string.trim();
+		try {
+			if (string.matches(".*[.eE].*")) return Double.parseDouble(string);
+			return Long.parseLong(string);
+		} catch (NumberFormatException e) {
+			return "error";
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.TextResource;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class ResponseCacheTest {
+	long time;
+
+	ResponseCache cache = new ResponseCache(1000, 3, 1000) {
+		@Override
+		long now() {
+			return time;
+		}
+	};
+
+	@Test public void testStore() throws Exception {
+		ResponseCache.Key key = key("/pets/1");
+		ResponseCache.Entry entry = cache.store(key, cache.generation(key.path), new TextResource("Just a pet"), "W/\"1\"", false, 5, Deflater.DEFAULT_COMPRESSION);
+		assertSame(entry, cache.get(key));
+		assertEquals("W/\"1\"", entry.getETag());
+		assertEquals("Just a pet", new String(entry.body, "UTF-8"));
+		assertNotNull(entry.gzipped);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		entry.write(bytes);
+		assertEquals("Just a pet", bytes.toString("UTF-8"));
+
+		entry = cache.store(key("/pets/2"), cache.generation("/pets/2"), new TextResource("Pet"), null, false, 5, Deflater.DEFAULT_COMPRESSION);
+		assertNull(entry.gzipped); // below the threshold
+	}
+
+	@Test public void testGet_expired() throws Exception {
+		ResponseCache.Key key = key("/pets/1");
+		cache.store(key, cache.generation(key.path), new TextResource("Just a pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		time += 999999999L;
+		assertNotNull(cache.get(key));
+		time += 1;
+		assertNull(cache.get(key));
+		assertEquals(0, cache.size());
+	}
+
+	@Test public void testPut_admission() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			for (int k = 0; k <= i; k++) cache.get(key("/pets/" + i));
+			cache.store(key("/pets/" + i), cache.generation("/pets/" + i), new TextResource("Pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		}
+		// a key requested once does not push out the least recently used one
+		assertNull(cache.get(key("/pets/3")));
+		cache.store(key("/pets/3"), cache.generation("/pets/3"), new TextResource("Pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		assertEquals(3, cache.size());
+		assertNull(cache.get(key("/pets/3")));
+		assertNotNull(cache.get(key("/pets/0")));
+
+		// a frequent one does
+		for (int k = 0; k < 5; k++) cache.get(key("/pets/4"));
+		cache.store(key("/pets/4"), cache.generation("/pets/4"), new TextResource("Pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		assertEquals(3, cache.size());
+		assertNotNull(cache.get(key("/pets/4")));
+		assertNull(cache.get(key("/pets/1")));
+	}
+
+	@Test public void testInvalidate() throws Exception {
+		cache.store(new ResponseCache.Key("/pets/1", "c"), cache.generation("/pets/1"), new TextResource("Pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		cache.store(new ResponseCache.Key("/pets/1", "p"), cache.generation("/pets/1"), new TextResource("Pet"), null, true, 0, Deflater.DEFAULT_COMPRESSION);
+		cache.store(new ResponseCache.Key("/pets/2", "c"), cache.generation("/pets/2"), new TextResource("Pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		cache.invalidate("/pets/1");
+		assertEquals(1, cache.size());
+		assertNotNull(cache.get(new ResponseCache.Key("/pets/2", "c")));
+	}
+
+	@Test public void testStore_invalidated_meanwhile() throws Exception {
+		long generation = cache.generation("/pets/1");
+		cache.invalidate("/pets/1"); // a PUT finishes while the GET is running
+		ResponseCache.Entry entry = cache.store(key("/pets/1"), generation, new TextResource("Old pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		assertEquals("Old pet", new String(entry.body, "UTF-8"));
+		assertNull(cache.get(key("/pets/1")));
+
+		cache.store(key("/pets/1"), cache.generation("/pets/1"), new TextResource("New pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		assertNotNull(cache.get(key("/pets/1")));
+
+		generation = cache.generation("/pets/2");
+		cache.clear();
+		cache.store(key("/pets/2"), generation, new TextResource("Pet"), null, false, 0, Deflater.DEFAULT_COMPRESSION);
+		assertEquals(0, cache.size());
+	}
+
+	@Test public void testPut_max_size() throws Exception {
+		String pet = StringUtils.repeat("x", 400);
+		cache.store(key("/pets/1"), cache.generation("/pets/1"), new TextResource(pet), null, false, 1000, Deflater.DEFAULT_COMPRESSION);
+		cache.store(key("/pets/2"), cache.generation("/pets/2"), new TextResource(pet), null, false, 1000, Deflater.DEFAULT_COMPRESSION);
+		assertEquals(800, cache.bytes());
+
+		// too large to be cached at all
+		cache.store(key("/pets/3"), cache.generation("/pets/3"), new TextResource(pet + pet + pet), null, false, 10000, Deflater.DEFAULT_COMPRESSION);
+		assertNull(cache.get(key("/pets/3")));
+
+		// the least recently used entry makes room for a frequent one
+		for (int k = 0; k < 5; k++) cache.get(key("/pets/4"));
+		cache.store(key("/pets/4"), cache.generation("/pets/4"), new TextResource(pet), null, false, 1000, Deflater.DEFAULT_COMPRESSION);
+		assertEquals(2, cache.size());
+		assertEquals(800, cache.bytes());
+		assertNull(cache.get(key("/pets/1")));
+		assertNotNull(cache.get(key("/pets/4")));
+
+		cache.invalidate("/pets/4");
+		assertEquals(400, cache.bytes());
+	}
+
+	private static ResponseCache.Key key(String path) {
+		return new ResponseCache.Key(path, "c");
+	}
+}
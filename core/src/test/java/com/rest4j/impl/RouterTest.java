@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.impl;
+
+import com.rest4j.impl.model.StringWithParams;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+import java.io.Serializable;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class RouterTest {
+	Router<String> router;
+
+	@Before
+	public void init() {
+		router = new Router<String>();
+		router.add(route("/pets"), "GET", "list");
+		router.add(route("/pets"), "POST", "create");
+		router.add(route("/pets/", param("id")), "GET", "get");
+		router.add(route("/pets/", param("id")), "DELETE", "delete");
+		router.add(route("/pets/new"), "GET", "new");
+		router.add(route("/pets/new"), "PUT", "putNew");
+		router.add(route("/pets/", param("id"), ".json"), "GET", "json");
+		router.add(route("x", param("name")), "GET", "x");
+	}
+
+	@Test
+	public void testMatch_literal() {
+		assertEquals("list", find("/pets", "GET"));
+		assertEquals("create", find("/pets", "POST"));
+		assertTrue(router.match("/pets/1/2").isEmpty());
+		assertTrue(router.match("/pets1").isEmpty());
+		assertTrue(router.match("").isEmpty());
+	}
+
+	@Test
+	public void testMatch_first_declared_wins() {
+		// '/pets/{id}' is declared before '/pets/new'
+		assertEquals("get", find("/pets/new", "GET"));
+		assertEquals("putNew", find("/pets/new", "PUT"));
+		assertEquals("[GET, DELETE, GET, PUT]", router.match("/pets/new").getAllowedMethods().toString());
+	}
+
+	@Test
+	public void testMatch_method_not_allowed() {
+		Router.Match<String> match = router.match("/pets/123");
+		assertFalse(match.isEmpty());
+		assertNull(match.find("PATCH"));
+		assertEquals("get", match.find("GET").target);
+		assertEquals("[GET, DELETE]", match.getAllowedMethods().toString());
+	}
+
+	@Test
+	public void testMatch_mixed_segment() {
+		// '/pets/{id}' matches as well and is declared first
+		assertEquals("get", find("/pets/123.json", "GET"));
+		assertEquals("[GET, DELETE, GET]", router.match("/pets/123.json").getAllowedMethods().toString());
+		assertEquals("[GET, DELETE]", router.match("/pets/123.xml").getAllowedMethods().toString());
+		assertEquals("x", find("xyz", "GET"));
+		assertEquals("x", find("x", "GET"));
+		assertTrue(router.match("/x").isEmpty());
+	}
+
+	@Test
+	public void testMatch_empty_param() {
+		assertEquals("get", find("/pets/", "GET"));
+	}
+
+	@Test
+	public void testMatch_params() {
+		RouteMatch<String> route = router.match("/pets/Max%20the%20cat").find("DELETE");
+		assertEquals("/pets/Max%20the%20cat", route.path);
+		assertEquals(Collections.singletonMap("id", "Max the cat"), route.params);
+		assertEquals(Collections.singletonMap("name", "yz"), router.match("xyz").find("GET").params);
+		assertEquals(Collections.emptyMap(), router.match("/pets").find("GET").params);
+	}
+
+	String find(String path, String method) {
+		RouteMatch<String> route = router.match(path).find(method);
+		return route == null ? null : route.target;
+	}
+
+	static StringWithParams route(Serializable... parts) {
+		StringWithParams route = new StringWithParams();
+		for (Serializable part: parts) {
+			route.getContent().add(part);
+		}
+		return route;
+	}
+
+	static JAXBElement<String> param(String name) {
+		return new JAXBElement<String>(new QName("param"), String.class, name);
+	}
+}
@@ -29,8 +29,10 @@ import java.util.Set;
  */
 public class PetMapping {
 	public Exception customMappingException;
+	public int petRelationsCalls;
 
 	public List<PetRelation> petRelations(Pet pet) throws Exception {
+		petRelationsCalls++;
 		if (customMappingException != null)
 			throw customMappingException;
 		List<PetRelation> result = new ArrayList<PetRelation>();
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.rest4j.json;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class UTF8WriterTest {
+	static final String[] STRINGS = {
+			"", "plain", "quote\" backslash\\ slash/ </script>", "\b\t\n\f\r\u0000\u001f",
+			"\u0080\u009f  éж   ⃿℀ 中�",
+			"😀 pair", "lone \ud83d high", "lone \ude00 low", "\ud83d", "end \ud83d😀"
+	};
+
+	@Test public void testWriteQuoted() throws IOException {
+		for (String string: STRINGS) {
+			assertArrayEquals(string, reference(JSONObject.quote(string)), utf8(string, true));
+		}
+		assertArrayEquals(reference("\"\""), utf8(null, true));
+	}
+
+	@Test public void testWrite() throws IOException {
+		for (String string: STRINGS) {
+			assertArrayEquals(string, reference(string), utf8(string, false));
+		}
+	}
+
+	@Test public void testWrite_split_pair() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		UTF8Writer writer = new UTF8Writer(bytes);
+		writer.write("a\ud83d");
+		writer.write('\ude00');
+		writer.write(new char[] {'\ud83d'});
+		writer.write("b");
+		writer.close();
+		assertArrayEquals(reference("a😀\ud83db"), bytes.toByteArray());
+	}
+
+	@Test public void testBufferBoundaries() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < UTF8Writer.BUFFER_SIZE * 3; i++) {
+			builder.append(STRINGS[i % STRINGS.length].isEmpty() ? "x" : STRINGS[i % STRINGS.length].charAt(0));
+			if (i % 7 == 0) builder.append("€😀\"");
+		}
+		String string = builder.toString();
+		for (int offset = 0; offset < 10; offset++) {
+			String shifted = string.substring(offset);
+			assertArrayEquals(reference(JSONObject.quote(shifted)), utf8(shifted, true));
+			assertArrayEquals(reference(shifted), utf8(shifted, false));
+		}
+	}
+
+	@Test public void testWriteKey() throws IOException {
+		byte[] encoded = UTF8Writer.encodeKey("na\"me");
+		assertArrayEquals(reference("\"na\\\"me\":"), encoded);
+		assertSame(encoded, UTF8Writer.encodeKey("na\"me"));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		UTF8Writer writer = new UTF8Writer(bytes);
+		writer.writeKey("na\"me");
+		writer.writeKey("unknowné");
+		writer.release();
+		assertEquals("\"na\\\"me\":\"unknowné\":", bytes.toString("UTF-8"));
+	}
+
+	@Test public void testJSONObject() throws IOException, JSONException {
+		JSONObject object = new JSONObject("{a:'é </',b:[1,2.5,null,{c:true}],'中':{}}");
+		for (int indent: new int[] {0, 2}) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			Writer reference = new OutputStreamWriter(expected, "UTF-8");
+			object.write(reference, indent);
+			reference.flush();
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			UTF8Writer writer = new UTF8Writer(bytes);
+			object.write(writer, indent);
+			writer.release();
+			assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+		}
+	}
+
+	@Test public void testWriteLong() throws IOException {
+		for (long value: new long[] {0, 7, -7, 10, 99, -100, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			UTF8Writer writer = new UTF8Writer(bytes);
+			writer.writeLong(value);
+			writer.release();
+			assertEquals(Long.toString(value), bytes.toString("UTF-8"));
+		}
+	}
+
+	@Test public void testWriteDouble() throws IOException {
+		Random random = new Random(1);
+		List<Double> values = new ArrayList<Double>(Arrays.asList(0.0, -0.0, 1.0, -1.5, 4.30, 0.1, 0.2, 0.1 + 0.2,
+				1 / 3.0, 1e-3, 9.99e-4, 1e7, 9999999.999999998, 123456789012345.6, 1e21, Double.MIN_VALUE, Double.MAX_VALUE));
+		for (int i = 0; i < 10000; i++) {
+			values.add(Math.floor(random.nextDouble() * 1e9) / Math.pow(10, random.nextInt(12)));
+			values.add(random.nextDouble() * 1e7);
+			values.add(Double.longBitsToDouble(random.nextLong()));
+		}
+		for (double value: values) {
+			if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			UTF8Writer writer = new UTF8Writer(bytes);
+			writer.writeDouble(value);
+			writer.release();
+			assertEquals(JSONObject.numberToString(value), bytes.toString("UTF-8"));
+		}
+	}
+
+	private static byte[] utf8(String string, boolean quoted) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		UTF8Writer writer = new UTF8Writer(bytes);
+		if (quoted) writer.writeQuoted(string);
+		else writer.write(string);
+		writer.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] reference(String string) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(bytes, "UTF-8");
+		writer.write(string);
+		writer.close();
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.generator;
+
+import com.rest4j.ApiFactory;
+import com.rest4j.Preprocessor;
+import com.rest4j.impl.ApiSnapshot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the binary snapshot of the API model for {@link ApiFactory#setSnapshot(URL)}. The API description
+ * is read the same way createAPI() reads it: preprocessed, schema-validated and unmarshalled, so the snapshot
+ * should be rebuilt whenever the XML, the preprocessors or the rest4j version change.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class SnapshotGenerator {
+	URL apiXml;
+	File output;
+	List<String> preprocessors = new ArrayList<String>();
+	String extSchema;
+	String extObjectFactory;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0 || args[0].equals("-h") || args[0].equals("--help")) {
+			help();
+			return;
+		}
+		SnapshotGenerator gen = new SnapshotGenerator();
+		for (int i=0; i<args.length-1; i++) {
+			if (args[i].equals("--api-xml") || args[i].equals("-x")) {
+				gen.setApiXml(new File(args[++i]));
+			} else if (args[i].equals("--output") || args[i].equals("-o")) {
+				gen.setOutput(new File(args[++i]));
+			} else if (args[i].equals("--preprocessor") || args[i].equals("-p")) {
+				gen.addPreprocessor(args[++i]);
+			} else if (args[i].equals("--ext-schema") || args[i].equals("-e")) {
+				gen.setExtSchema(args[++i]);
+			} else if (args[i].equals("--ext-object-factory") || args[i].equals("-f")) {
+				gen.setExtObjectFactory(args[++i]);
+			} else {
+				System.err.println("Unrecognized option "+args[i]);
+				help();
+				System.exit(-1);
+			}
+		}
+		gen.generate();
+	}
+
+	private static void help() {
+		l("Writes the binary snapshot of the API model that ApiFactory can load instead of the XML. Options are:");
+		l("");
+		l("   --api-xml or -x              XML API description file.");
+		l("   --output or -o               Output snapshot file.");
+		l("   --preprocessor or -p         A preprocessor class name (implementing Preprocessor interface). There can be several --preprocessor options.");
+		l("   --ext-schema or -e           Classpath resource with the XML Schema for <extra> tags (optional).");
+		l("   --ext-object-factory or -f   The JAXB ObjectFactory class for the ext schema (optional).");
+	}
+
+	private static void l(String s) {
+		System.out.println(s);
+	}
+
+	public void setApiXml(File xml) throws MalformedURLException {
+		this.apiXml = xml.toURI().toURL();
+	}
+
+	public void setApiXmlUrl(URL xml) {
+		this.apiXml = xml;
+	}
+
+	public void setOutput(File output) {
+		this.output = output;
+	}
+
+	public void addPreprocessor(String clazz) {
+		preprocessors.add(clazz);
+	}
+
+	public void setExtSchema(String extSchema) {
+		this.extSchema = extSchema;
+	}
+
+	public void setExtObjectFactory(String extObjectFactory) {
+		this.extObjectFactory = extObjectFactory;
+	}
+
+	public void generate() throws Exception {
+		ApiFactory fac = new ApiFactory(apiXml, null, null);
+		for (String className: preprocessors) {
+			Preprocessor p = (Preprocessor) Class.forName(className).newInstance();
+			fac.addPreprocessor(p);
+		}
+		if (extSchema != null || extObjectFactory != null) {
+			fac.setExtSchema(extSchema, extObjectFactory == null ? null : Class.forName(extObjectFactory));
+		}
+		com.rest4j.impl.model.API model = fac.readModel();
+
+		if (output.getParentFile() != null) output.getParentFile().mkdirs();
+		System.out.println("Write " + output.getAbsolutePath());
+		OutputStream out = new FileOutputStream(output);
+		try {
+			ApiSnapshot.write(model, out);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.rest4j.generator;
+
+import org.apache.tools.ant.BuildException;
+
+import java.io.File;
+import java.net.MalformedURLException;
+
+/**
+ * An Ant task for {@link SnapshotGenerator}.
+ *
+ * @author Joseph Kapizza <joseph@rest4j.com>
+ */
+public class SnapshotTask extends org.apache.tools.ant.Task {
+	SnapshotGenerator gen = new SnapshotGenerator();
+
+	public void addConfiguredPreprocessor(PreprocessorTag preprocessorTag) {
+		gen.addPreprocessor(preprocessorTag.getClazz());
+	}
+
+	public void setApiXml(File xml) throws MalformedURLException {
+		gen.setApiXml(xml);
+	}
+
+	public void setOutput(File output) {
+		gen.setOutput(output);
+	}
+
+	public void setExtSchema(String extSchema) {
+		gen.setExtSchema(extSchema);
+	}
+
+	public void setExtObjectFactory(String extObjectFactory) {
+		gen.setExtObjectFactory(extObjectFactory);
+	}
+
+	@Override
+	public void execute() throws BuildException {
+		try {
+			gen.generate();
+		} catch (RuntimeException re) {
+			throw re;
+		} catch (Exception ex) {
+			throw new BuildException(ex);
+		}
+	}
+}